@@ -1,10 +1,15 @@
 package com.example.recipe.account;
 
+import com.example.recipe.calendar.CalendarIndex;
 import com.example.recipe.recipe.Recipe;
+import com.example.recipe.recipe.RecipeJsonCache;
+import com.example.recipe.recipe.RecipeOwners;
 import com.example.recipe.recipe.RecipeRepository;
 import com.example.recipe.response.AuthRes;
+import com.example.recipe.security.ActiveAccounts;
 import com.example.recipe.security.AuthRequest;
 import com.example.recipe.security.JwtService;
+import com.example.recipe.stats.AccountStatsService;
 import exceptions.BadRequestException;
 import exceptions.DatabaseException;
 import exceptions.ForbiddenException;
@@ -13,6 +18,7 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -29,6 +35,21 @@ public class AccountService {
     @Autowired
     private RecipeRepository recipeRepository;
 
+    @Autowired
+    private AccountStatsService accountStatsService;
+
+    @Autowired
+    private CalendarIndex calendarIndex;
+
+    @Autowired
+    private RecipeJsonCache recipeJsonCache;
+
+    @Autowired
+    private RecipeOwners recipeOwners;
+
+    @Autowired
+    private ActiveAccounts activeAccounts;
+
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
@@ -103,6 +124,7 @@ public class AccountService {
      *        id of the account to be deleted
      * @return true if account was deleted, error otherwise.
      */
+    @Transactional
     public Boolean delete(int id) {
         Account account = accountRepository.findById(id).orElseThrow(() ->
                 new BadRequestException("No accounts with the id"));
@@ -116,6 +138,13 @@ public class AccountService {
 
         try {
             accountRepository.delete(account);
+            accountStatsService.accountDeleted(id);
+            calendarIndex.evict(id);
+            activeAccounts.evict(id);
+            for (Recipe recipe : recipes) {
+                recipeJsonCache.invalidate(recipe.getId());
+                recipeOwners.invalidate(recipe.getId());
+            }
         }
         catch (Exception e) {
             throw new DatabaseException("Failed to delete account");
@@ -0,0 +1,115 @@
+package com.example.recipe.api;
+
+import com.example.recipe.apiClasses.RecipeFormat;
+import com.example.recipe.recipe.RecipeResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the client used to call the recipe API.
+ * One pooled client is shared by all calls so connections and TLS sessions are reused.
+ * Pool metrics are published under reactor.netty.connection.provider.recipe-api.
+ */
+@SuppressWarnings("unused")
+@Configuration
+public class ApiClientConfig {
+
+    @Value("${requestUrl}")
+    private String requestUrl;
+
+    @Value("${recipe.api.max-connections:16}")
+    private int maxConnections;
+
+    @Value("${recipe.api.pending-acquire-max:64}")
+    private int pendingAcquireMax;
+
+    @Value("${recipe.api.pending-acquire-timeout:5s}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${recipe.api.max-idle-time:30s}")
+    private Duration maxIdleTime;
+
+    @Value("${recipe.api.max-life-time:5m}")
+    private Duration maxLifeTime;
+
+    @Value("${recipe.api.evict-interval:30s}")
+    private Duration evictInterval;
+
+    @Value("${recipe.api.connect-timeout:3s}")
+    private Duration connectTimeout;
+
+    @Value("${recipe.api.response-timeout:10s}")
+    private Duration responseTimeout;
+
+    /**
+     * Creates the connection pool for the recipe API.
+     * Idle connections are evicted in the background so stale sockets aren't handed out.
+     * @return the connection pool.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider recipeApiConnectionProvider() {
+        return ConnectionProvider.builder("recipe-api")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * Creates the WebClient for the recipe API on top of the connection pool.
+     * @param builder
+     *        WebClient.Builder configured by spring
+     * @param recipeApiConnectionProvider
+     *        connection pool to be used
+     * @return WebClient with the API url as base url.
+     */
+    @Bean
+    public WebClient recipeApiClient(WebClient.Builder builder, ConnectionProvider recipeApiConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(recipeApiConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(responseTimeout)
+                .compress(true);
+
+        return builder
+                .baseUrl(requestUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    /**
+     * Creates the coalescer for recipe by id calls.
+     * @param meterRegistry
+     *        registry for the call counts
+     * @return coalescer keyed by recipe id.
+     */
+    @Bean
+    public RequestCoalescer<Integer, RecipeFormat> recipeByIdCoalescer(MeterRegistry meterRegistry) {
+        return new RequestCoalescer<>("id", meterRegistry);
+    }
+
+    /**
+     * Creates the coalescer for search calls.
+     * @param meterRegistry
+     *        registry for the call counts
+     * @return coalescer keyed by canonical search.
+     */
+    @Bean
+    public RequestCoalescer<SearchKey, RecipeResponse> searchCoalescer(MeterRegistry meterRegistry) {
+        return new RequestCoalescer<>("search", meterRegistry);
+    }
+}
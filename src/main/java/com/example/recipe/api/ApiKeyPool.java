@@ -0,0 +1,182 @@
+package com.example.recipe.api;
+
+import exceptions.UpstreamException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of keys for the recipe API.
+ * The remaining daily quota of each key is read from the X-API-Quota-Left header, and a key is
+ * rotated out until the next UTC midnight when it drops below the reserve or the API answers 402.
+ * Rate limited keys cool down with a backoff, and rejected keys for a longer while.
+ * Of the keys available the one with the fewest failures in a row is used, in configured order.
+ * The known quota of each key is published as recipe.api.key.quota.
+ */
+@Component
+public class ApiKeyPool {
+    private static final Logger log = LoggerFactory.getLogger(ApiKeyPool.class);
+    static final String QUOTA_LEFT = "X-API-Quota-Left";
+
+    private final List<Key> keys = new ArrayList<>();
+    private final double reserve;
+    private final Duration rateLimitCooldown;
+    private final Duration rejectedCooldown;
+    private final Clock clock;
+
+    @Autowired
+    public ApiKeyPool(MeterRegistry meterRegistry,
+                      @Value("${recipe.api.keys:${apiKey2},${apiKey}}") String[] keys,
+                      @Value("${recipe.api.key.quota-reserve:5}") double reserve,
+                      @Value("${recipe.api.key.rate-limit-cooldown:30s}") Duration rateLimitCooldown,
+                      @Value("${recipe.api.key.rejected-cooldown:1h}") Duration rejectedCooldown) {
+        this(meterRegistry, keys, reserve, rateLimitCooldown, rejectedCooldown, Clock.systemUTC());
+    }
+
+    ApiKeyPool(MeterRegistry meterRegistry, String[] keys, double reserve, Duration rateLimitCooldown, Duration rejectedCooldown, Clock clock) {
+        this.reserve = reserve;
+        this.rateLimitCooldown = rateLimitCooldown;
+        this.rejectedCooldown = rejectedCooldown;
+        this.clock = clock;
+        for (String value : keys) {
+            if (value == null || value.isBlank()) continue;
+            Key key = new Key(this.keys.size(), value.trim());
+            this.keys.add(key);
+            Gauge.builder("recipe.api.key.quota", key, k -> k.remaining)
+                    .tag("key", String.valueOf(key.index))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @return amount of keys in the pool.
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Picks the key for the next call.
+     * @return the healthiest available key, or null if all keys are cooling down.
+     */
+    public synchronized Key next() {
+        long now = clock.millis();
+        Key best = null;
+        for (Key key : keys) {
+            if (key.cooldownUntil > now) continue;
+            if (best == null || key.failures < best.failures) best = key;
+        }
+        return best;
+    }
+
+    /**
+     * Records a successful call.
+     * @param key
+     *        key used for the call
+     * @param headers
+     *        headers of the response
+     */
+    public synchronized void success(Key key, HttpHeaders headers) {
+        key.failures = 0;
+        updateQuota(key, headers);
+    }
+
+    /**
+     * Records a failed call and cools the key down if the failure was caused by it.
+     * @param key
+     *        key used for the call
+     * @param kind
+     *        kind of the failure
+     * @param headers
+     *        headers of the response
+     */
+    public synchronized void failure(Key key, UpstreamException.Kind kind, HttpHeaders headers) {
+        updateQuota(key, headers);
+        switch (kind) {
+            case QUOTA_EXHAUSTED -> {
+                key.remaining = 0;
+                coolDownUntilReset(key);
+            }
+            case RATE_LIMITED -> {
+                key.failures++;
+                long backoff = rateLimitCooldown.toMillis() << Math.min(key.failures - 1, 6);
+                key.cooldownUntil = clock.millis() + backoff;
+            }
+            case UNAUTHORIZED -> {
+                key.failures++;
+                key.cooldownUntil = clock.millis() + rejectedCooldown.toMillis();
+                log.warn("API key {} was rejected", key.index);
+            }
+            default -> { }
+        }
+    }
+
+    /**
+     * Reads the remaining quota from the headers and rotates the key out if it's low.
+     * @param key
+     *        key used for the call
+     * @param headers
+     *        headers of the response
+     */
+    private void updateQuota(Key key, HttpHeaders headers) {
+        if (headers == null) return;
+        String left = headers.getFirst(QUOTA_LEFT);
+        if (left == null) return;
+        try {
+            key.remaining = Double.parseDouble(left);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (key.remaining < reserve) coolDownUntilReset(key);
+    }
+
+    /**
+     * Cools the key down until the quota resets at midnight UTC.
+     * @param key
+     *        key to cool down
+     */
+    private void coolDownUntilReset(Key key) {
+        key.cooldownUntil = LocalDate.now(clock.withZone(ZoneOffset.UTC))
+                .plusDays(1)
+                .atStartOfDay(ZoneOffset.UTC)
+                .toInstant()
+                .toEpochMilli();
+        log.info("API key {} rotated out until quota reset", key.index);
+    }
+
+    /**
+     * Key for the recipe API and its health.
+     */
+    public static final class Key {
+        private final int index;
+        private final String value;
+        private volatile double remaining = Double.NaN;
+        private long cooldownUntil;
+        private int failures;
+
+        private Key(int index, String value) {
+            this.index = index;
+            this.value = value;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+}
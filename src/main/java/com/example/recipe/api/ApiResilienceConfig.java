@@ -0,0 +1,135 @@
+package com.example.recipe.api;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the circuit breaker and bulkhead around calls to the recipe API.
+ * The bulkhead caps concurrent calls and rejects the rest right away. The circuit breaker opens
+ * when too many calls fail or time out, and calls fail fast until it half opens again.
+ * Only 5xx answers, timeouts and connection errors count as failures, not 4xx answers like 402.
+ * <p>
+ * Metrics are published under resilience4j.circuitbreaker.* and resilience4j.bulkhead.*,
+ * state transitions as recipe.api.circuit.transitions and rejected calls as recipe.api.rejected.
+ */
+@SuppressWarnings("unused")
+@Configuration
+public class ApiResilienceConfig {
+    private static final Logger log = LoggerFactory.getLogger(ApiResilienceConfig.class);
+    private static final String NAME = "recipe-api";
+
+    @Value("${recipe.api.bulkhead.max-concurrent:16}")
+    private int maxConcurrent;
+
+    @Value("${recipe.api.circuit.failure-rate:50}")
+    private float failureRate;
+
+    @Value("${recipe.api.circuit.window:20}")
+    private int window;
+
+    @Value("${recipe.api.circuit.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${recipe.api.circuit.open-duration:30s}")
+    private Duration openDuration;
+
+    @Value("${recipe.api.circuit.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    /**
+     * Creates the circuit breaker for the recipe API.
+     * @param meterRegistry
+     *        registry for the metrics
+     * @return the circuit breaker.
+     */
+    @Bean
+    public CircuitBreaker recipeApiCircuitBreaker(MeterRegistry meterRegistry) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(window)
+                .minimumNumberOfCalls(minimumCalls)
+                .failureRateThreshold(failureRate)
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .recordException(ApiResilienceConfig::isFailure)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+
+        CircuitBreaker circuitBreaker = registry.circuitBreaker(NAME);
+        circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> {
+                    CircuitBreaker.StateTransition transition = event.getStateTransition();
+                    log.warn("Circuit to the recipe API went from {} to {}", transition.getFromState(), transition.getToState());
+                    Counter.builder("recipe.api.circuit.transitions")
+                            .tag("from", transition.getFromState().name())
+                            .tag("to", transition.getToState().name())
+                            .register(meterRegistry)
+                            .increment();
+                })
+                .onCallNotPermitted(event -> rejected(meterRegistry, "circuit").increment());
+        return circuitBreaker;
+    }
+
+    /**
+     * Creates the bulkhead for the recipe API.
+     * @param meterRegistry
+     *        registry for the metrics
+     * @return the bulkhead.
+     */
+    @Bean
+    public Bulkhead recipeApiBulkhead(MeterRegistry meterRegistry) {
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrent)
+                .maxWaitDuration(Duration.ZERO)
+                .build();
+        BulkheadRegistry registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+
+        Bulkhead bulkhead = registry.bulkhead(NAME);
+        bulkhead.getEventPublisher()
+                .onCallRejected(event -> rejected(meterRegistry, "bulkhead").increment());
+        return bulkhead;
+    }
+
+    /**
+     * Gets the counter for rejected calls.
+     * @param meterRegistry
+     *        registry for the counter
+     * @param by
+     *        what rejected the call
+     * @return the counter.
+     */
+    private static Counter rejected(MeterRegistry meterRegistry, String by) {
+        return Counter.builder("recipe.api.rejected")
+                .tag("by", by)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tells if an error means the API is unhealthy.
+     * @param e
+     *        error of the call
+     * @return false for 4xx answers, true otherwise.
+     */
+    static boolean isFailure(Throwable e) {
+        if (e instanceof WebClientResponseException response) return response.getStatusCode().is5xxServerError();
+        return true;
+    }
+}
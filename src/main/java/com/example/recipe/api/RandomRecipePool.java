@@ -0,0 +1,228 @@
+package com.example.recipe.api;
+
+import com.example.recipe.apiClasses.ShortRecipe;
+import com.example.recipe.recipe.RandomResponse;
+import com.example.recipe.recipe.RecipeUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import exceptions.UpstreamException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pool of random recipes fetched from the API in large batches.
+ * Requests are served from memory. When the pool drops below the low-water mark one refill is
+ * started in the background, and refills are at least the minimum interval apart.
+ * Only a cold pool that can't fill a page makes the caller wait for the refill.
+ * When the pool is empty and no refill may start, the page is fetched from the API directly.
+ * Recipes served to a caller are skipped for that caller's next page, unless the pool has nothing else.
+ * The fill level is published as recipe.random.pool.size.
+ */
+@Component
+public class RandomRecipePool {
+    private static final Logger log = LoggerFactory.getLogger(RandomRecipePool.class);
+
+    private final RecipeUtils recipeUtils;
+    private final int pageSize;
+    private final int batchSize;
+    private final int lowWater;
+    private final int maxSize;
+    private final long minInterval;
+    private final Duration coldWait;
+
+    private final Deque<ShortRecipe> pool = new ArrayDeque<>();
+    private final Set<Integer> pooledIds = new HashSet<>();
+    private final Cache<String, Set<Integer>> lastServed;
+
+    private CompletableFuture<Void> refilling;
+    private long lastRefill;
+    private volatile RuntimeException lastFailure;
+
+    public RandomRecipePool(RecipeUtils recipeUtils,
+                            MeterRegistry meterRegistry,
+                            @Value("${recipe.random.page-size:12}") int pageSize,
+                            @Value("${recipe.random.pool.batch-size:100}") int batchSize,
+                            @Value("${recipe.random.pool.low-water:36}") int lowWater,
+                            @Value("${recipe.random.pool.max-size:300}") int maxSize,
+                            @Value("${recipe.random.pool.min-refill-interval:10s}") Duration minInterval,
+                            @Value("${recipe.random.pool.cold-wait:10s}") Duration coldWait,
+                            @Value("${recipe.random.pool.callers:10000}") long callers) {
+        this.recipeUtils = recipeUtils;
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+        this.lowWater = lowWater;
+        this.maxSize = maxSize;
+        this.minInterval = minInterval.toNanos();
+        this.coldWait = coldWait;
+        this.lastRefill = System.nanoTime() - this.minInterval;
+        this.lastServed = Caffeine.newBuilder()
+                .maximumSize(callers)
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+        Gauge.builder("recipe.random.pool.size", this, RandomRecipePool::size).register(meterRegistry);
+    }
+
+    /**
+     * Takes a page of random recipes from the pool.
+     * @param caller
+     *        key of the caller, recipes from their last page are skipped. Can be null.
+     * @return up to a page of random recipes.
+     */
+    public Mono<List<ShortRecipe>> take(String caller) {
+        return Mono.defer(() -> {
+            Mono<List<ShortRecipe>> serve = Mono.defer(() -> serve(caller));
+            if (size() >= pageSize) return serve;
+            CompletableFuture<Void> refill = refill();
+            if (refill == null) return serve;
+            return Mono.fromFuture(refill, true)
+                    .timeout(coldWait)
+                    .onErrorResume(e -> Mono.empty())
+                    .then(serve);
+        });
+    }
+
+    /**
+     * Serves a page from the pool and starts a refill if the pool is low.
+     * An empty pool serves a page fetched from the API directly, unless the last refill failed.
+     * @param caller
+     *        key of the caller. Can be null.
+     * @return up to a page of random recipes, or the error of the last refill.
+     */
+    private Mono<List<ShortRecipe>> serve(String caller) {
+        Set<Integer> exclude = caller == null ? null : lastServed.getIfPresent(caller);
+        List<ShortRecipe> recipes = poll(exclude == null ? Set.of() : exclude);
+        if (recipes.isEmpty()) {
+            RuntimeException failure = lastFailure;
+            if (failure != null) return Mono.error(failure);
+            return recipeUtils.randomResults(pageSize)
+                    .map(response -> served(caller, response.getRecipes() == null ? List.of() : response.getRecipes()));
+        }
+        if (size() < lowWater) refill();
+        return Mono.just(served(caller, recipes));
+    }
+
+    /**
+     * Remembers the page served to the caller.
+     * @param caller
+     *        key of the caller. Can be null.
+     * @param recipes
+     *        page served to the caller
+     * @return the page.
+     */
+    private List<ShortRecipe> served(String caller, List<ShortRecipe> recipes) {
+        if (caller != null) {
+            Set<Integer> served = new HashSet<>();
+            for (ShortRecipe recipe : recipes) served.add(recipe.getId());
+            lastServed.put(caller, served);
+        }
+        return recipes;
+    }
+
+    /**
+     * @return amount of recipes in the pool.
+     */
+    public int size() {
+        synchronized (pool) {
+            return pool.size();
+        }
+    }
+
+    /**
+     * Takes up to a page of recipes from the front of the pool.
+     * Excluded recipes are only taken when the page can't be filled without them,
+     * otherwise they are left in the pool for other callers.
+     * @param exclude
+     *        ids not to be taken
+     * @return the recipes taken.
+     */
+    private List<ShortRecipe> poll(Set<Integer> exclude) {
+        List<ShortRecipe> taken = new ArrayList<>(pageSize);
+        List<ShortRecipe> skipped = new ArrayList<>();
+        synchronized (pool) {
+            while (taken.size() < pageSize && !pool.isEmpty()) {
+                ShortRecipe recipe = pool.pollFirst();
+                if (exclude.contains(recipe.getId())) {
+                    skipped.add(recipe);
+                } else {
+                    pooledIds.remove(recipe.getId());
+                    taken.add(recipe);
+                }
+            }
+            int reused = Math.min(pageSize - taken.size(), skipped.size());
+            for (ShortRecipe recipe : skipped.subList(0, reused)) {
+                pooledIds.remove(recipe.getId());
+                taken.add(recipe);
+            }
+            for (int i = skipped.size() - 1; i >= reused; i--) pool.addFirst(skipped.get(i));
+        }
+        return taken;
+    }
+
+    /**
+     * Starts a refill in the background unless one is in flight, the pool is full
+     * or the last refill was too recent.
+     * @return the refill in flight, or null if none was started.
+     */
+    private synchronized CompletableFuture<Void> refill() {
+        if (refilling != null) return refilling;
+        if (size() >= maxSize) return null;
+        long now = System.nanoTime();
+        if (now - lastRefill < minInterval) return null;
+        lastRefill = now;
+
+        CompletableFuture<Void> refill = new CompletableFuture<>();
+        refilling = refill;
+        Mono.defer(() -> recipeUtils.randomResults(batchSize)).subscribe(
+                this::add,
+                error -> {
+                    log.warn("Refilling random recipes failed: {}", error.getMessage());
+                    lastFailure = error instanceof RuntimeException e ? e : new UpstreamException(UpstreamException.Kind.UNAVAILABLE, "API unavailable", error);
+                    done(refill);
+                    refill.completeExceptionally(error);
+                },
+                () -> {
+                    done(refill);
+                    refill.complete(null);
+                });
+        return refill;
+    }
+
+    /**
+     * Clears the refill in flight.
+     * @param refill
+     *        the refill that is done
+     */
+    private synchronized void done(CompletableFuture<Void> refill) {
+        if (refilling == refill) refilling = null;
+    }
+
+    /**
+     * Adds the new recipes from a batch to the pool.
+     * @param response
+     *        batch of random recipes from the API
+     */
+    private void add(RandomResponse response) {
+        lastFailure = null;
+        if (response.getRecipes() == null) return;
+        synchronized (pool) {
+            for (ShortRecipe recipe : response.getRecipes()) {
+                if (pool.size() >= maxSize) break;
+                if (pooledIds.add(recipe.getId())) pool.addLast(recipe);
+            }
+        }
+    }
+}
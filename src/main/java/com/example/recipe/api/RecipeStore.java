@@ -0,0 +1,343 @@
+package com.example.recipe.api;
+
+import com.example.recipe.apiClasses.RecipeFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Disk backed store of recipes from the API, so they survive restarts of the machine.
+ * Recipes are appended to a memory mapped data file and their locations to a small index file.
+ * Only the index is read on startup. When the data file is full, old and replaced recipes are
+ * compacted away so the store stays inside its byte budget.
+ * <p>
+ * Data file record: id (int), length (int), crc (int), json (length bytes).
+ * Index file entry: id (int), offset (int), length (int).
+ */
+@Component
+public class RecipeStore {
+    private static final Logger log = LoggerFactory.getLogger(RecipeStore.class);
+    private static final int HEADER = 12;
+    private static final int INDEX_ENTRY = 12;
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int capacity;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // id -> offset in the upper and length in the lower 32 bits
+    private final Map<Integer, Long> index = new HashMap<>();
+    private FileChannel dataChannel;
+    private FileChannel indexChannel;
+    private MappedByteBuffer data;
+    private int tail;
+    private boolean open;
+
+    public RecipeStore(ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${recipe.store.path:${java.io.tmpdir}/recipe-store}") Path directory,
+                       @Value("${recipe.store.max-size:32MB}") DataSize maxSize,
+                       @Value("${recipe.store.enabled:true}") boolean enabled) {
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.capacity = (int) Math.min(maxSize.toBytes(), Integer.MAX_VALUE);
+        this.enabled = enabled;
+        Gauge.builder("recipe.store.entries", this, RecipeStore::size).register(meterRegistry);
+        Gauge.builder("recipe.store.bytes", this, RecipeStore::usedBytes).register(meterRegistry);
+    }
+
+    /**
+     * Opens the files and loads the index.
+     * If the files can't be opened the store is disabled and every get is a miss.
+     */
+    @PostConstruct
+    public void open() {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            Files.createDirectories(directory);
+            Path dataFile = directory.resolve("recipes.dat");
+            Path indexFile = directory.resolve("recipes.idx");
+            if (Files.exists(dataFile) && Files.size(dataFile) > capacity) {
+                // budget was made smaller, start over
+                Files.delete(dataFile);
+                Files.deleteIfExists(indexFile);
+            }
+            dataChannel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            loadIndex();
+            open = true;
+        } catch (IOException e) {
+            log.warn("Recipe store disabled, could not open {}", directory, e);
+            close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the index file into memory. Entries that don't match the data file are skipped,
+     * and later entries for the same id replace earlier ones.
+     */
+    private void loadIndex() throws IOException {
+        ByteBuffer entries = ByteBuffer.allocate((int) indexChannel.size());
+        indexChannel.read(entries, 0);
+        entries.flip();
+
+        int valid = 0;
+        while (entries.remaining() >= INDEX_ENTRY) {
+            int id = entries.getInt();
+            int offset = entries.getInt();
+            int length = entries.getInt();
+            if (offset < 0 || length < 0 || (long) offset + HEADER + length > capacity) continue;
+            if (data.getInt(offset) != id || data.getInt(offset + 4) != length) continue;
+            index.put(id, pack(offset, length));
+            tail = Math.max(tail, offset + HEADER + length);
+            valid += INDEX_ENTRY;
+        }
+        if (valid != indexChannel.size()) {
+            rewriteIndex();
+        }
+    }
+
+    /**
+     * Gets a recipe from the store.
+     * @param id
+     *        API id of the recipe
+     * @return the recipe or null if it isn't stored.
+     */
+    public RecipeFormat get(int id) {
+        byte[] json;
+        lock.readLock().lock();
+        try {
+            if (!open) return null;
+            Long location = index.get(id);
+            if (location == null) return null;
+            int offset = offset(location);
+            int length = length(location);
+            json = new byte[length];
+            data.get(offset + HEADER, json);
+            if (data.getInt(offset + 8) != crc(json)) json = null;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (json == null) {
+            remove(id);
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, RecipeFormat.class);
+        } catch (IOException e) {
+            remove(id);
+            return null;
+        }
+    }
+
+    /**
+     * Adds a recipe to the store, replacing an earlier version of it.
+     * Recipes larger than a quarter of the budget are not stored.
+     * @param id
+     *        API id of the recipe
+     * @param recipe
+     *        recipe to be stored
+     */
+    public void put(int id, RecipeFormat recipe) {
+        if (!open || recipe == null) return;
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(recipe);
+        } catch (IOException e) {
+            return;
+        }
+        int size = HEADER + json.length;
+        if (size > capacity / 4) return;
+
+        lock.writeLock().lock();
+        try {
+            if (!open) return;
+            if (tail + size > capacity) {
+                compact(size);
+            }
+            int offset = tail;
+            data.putInt(offset, id);
+            data.putInt(offset + 4, json.length);
+            data.putInt(offset + 8, crc(json));
+            data.put(offset + HEADER, json);
+
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY).putInt(id).putInt(offset).putInt(json.length).flip();
+            indexChannel.write(entry, indexChannel.size());
+
+            index.put(id, pack(offset, json.length));
+            tail = offset + size;
+        } catch (IOException e) {
+            log.warn("Could not write recipe {} to the store", id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an unreadable recipe from the store.
+     * The index file is rewritten, so the recipe doesn't come back after a restart.
+     * @param id
+     *        API id of the recipe
+     */
+    private void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            if (!open || index.remove(id) == null) return;
+            rewriteIndex();
+        } catch (IOException e) {
+            log.warn("Could not remove recipe {} from the store index", id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the live recipes to the start of the data file.
+     * If that doesn't free enough room, the oldest recipes are dropped until
+     * the store is at most three quarters full with the new recipe.
+     * Must be called with the write lock held.
+     * @param needed
+     *        bytes needed for the new record
+     */
+    private void compact(int needed) throws IOException {
+        List<Map.Entry<Integer, Long>> live = new ArrayList<>(index.entrySet());
+        live.sort(Comparator.comparingInt(entry -> offset(entry.getValue())));
+
+        long liveBytes = 0;
+        for (Map.Entry<Integer, Long> entry : live) {
+            liveBytes += HEADER + length(entry.getValue());
+        }
+        int first = 0;
+        long target = liveBytes + needed > capacity ? (long) capacity * 3 / 4 - needed : liveBytes;
+        while (first < live.size() && liveBytes > target) {
+            liveBytes -= HEADER + length(live.get(first).getValue());
+            index.remove(live.get(first).getKey());
+            first++;
+        }
+
+        int position = 0;
+        for (Map.Entry<Integer, Long> entry : live.subList(first, live.size())) {
+            int offset = offset(entry.getValue());
+            int length = length(entry.getValue());
+            if (offset != position) {
+                byte[] record = new byte[HEADER + length];
+                data.get(offset, record);
+                data.put(position, record);
+                index.put(entry.getKey(), pack(position, length));
+            }
+            position += HEADER + length;
+        }
+        tail = position;
+        data.force();
+        rewriteIndex();
+    }
+
+    /**
+     * Writes the in-memory index to the index file.
+     */
+    private void rewriteIndex() throws IOException {
+        ByteBuffer entries = ByteBuffer.allocate(index.size() * INDEX_ENTRY);
+        for (Map.Entry<Integer, Long> entry : index.entrySet()) {
+            entries.putInt(entry.getKey()).putInt(offset(entry.getValue())).putInt(length(entry.getValue()));
+        }
+        entries.flip();
+        indexChannel.truncate(0);
+        indexChannel.write(entries, 0);
+        indexChannel.force(false);
+    }
+
+    /**
+     * Flushes and closes the files.
+     */
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            open = false;
+            if (data != null) data.force();
+            if (dataChannel != null) dataChannel.close();
+            if (indexChannel != null) {
+                indexChannel.force(false);
+                indexChannel.close();
+            }
+        } catch (IOException e) {
+            log.warn("Could not close the recipe store", e);
+        } finally {
+            index.clear();
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the count of stored recipes.
+     * @return count of recipes.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the bytes used in the data file, including space of replaced recipes.
+     * @return used bytes.
+     */
+    public int usedBytes() {
+        lock.readLock().lock();
+        try {
+            return tail;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long pack(int offset, int length) {
+        return ((long) offset << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    private static int offset(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int length(long location) {
+        return (int) location;
+    }
+
+    private static int crc(byte[] json) {
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.recipe.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares one call to the API between concurrent identical requests.
+ * The first request for a key makes the call and the others get its result or error.
+ * Counts are published as recipe.api.calls with the result originated or coalesced.
+ * @param <K> key identifying identical requests
+ * @param <V> result of the call
+ */
+public class RequestCoalescer<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter originated;
+    private final Counter coalesced;
+
+    public RequestCoalescer(String call, MeterRegistry meterRegistry) {
+        this.originated = Counter.builder("recipe.api.calls")
+                .tag("call", call)
+                .tag("result", "originated")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("recipe.api.calls")
+                .tag("call", call)
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Makes the call, or joins an identical call already in flight.
+     * The call is started on subscription and runs to the end even if the caller cancels,
+     * so the callers that joined it still get the result.
+     * @param key
+     *        key of the request
+     * @param call
+     *        call to be made if none is in flight
+     * @return result of the call.
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            CompletableFuture<V> created = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+            if (existing != null) {
+                coalesced.increment();
+                return Mono.fromFuture(existing, true);
+            }
+
+            originated.increment();
+            Mono<V> mono;
+            try {
+                mono = call.get();
+            } catch (RuntimeException e) {
+                mono = Mono.error(e);
+            }
+            mono.subscribe(
+                    value -> {
+                        inFlight.remove(key, created);
+                        created.complete(value);
+                    },
+                    error -> {
+                        inFlight.remove(key, created);
+                        created.completeExceptionally(error);
+                    },
+                    () -> {
+                        inFlight.remove(key, created);
+                        created.complete(null);
+                    });
+            return Mono.fromFuture(created, true);
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.recipe.api;
+
+import com.example.recipe.apiClasses.ShortRecipe;
+import com.example.recipe.recipe.RecipeResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Cache for search results from the API.
+ * Bounded by the estimated size of the results in bytes and entries are fresh for the ttl.
+ * Entries are kept until the stale ttl so they can be served when the API fails.
+ * Hits, misses and evictions are published under the cache name recipe.search, a stale entry counts as a miss.
+ */
+@Component
+public class SearchCache {
+    private final Cache<SearchKey, RecipeResponse> cache;
+    private final StatsCounter stats = new ConcurrentStatsCounter();
+    private final Duration ttl;
+
+    public SearchCache(MeterRegistry meterRegistry,
+                       @Value("${recipe.search.cache.ttl:10m}") Duration ttl,
+                       @Value("${recipe.search.cache.stale-ttl:1h}") Duration staleTtl,
+                       @Value("${recipe.search.cache.max-size:4MB}") DataSize maxSize) {
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(staleTtl.compareTo(ttl) > 0 ? staleTtl : ttl)
+                .maximumWeight(maxSize.toBytes())
+                .weigher(SearchCache::weigh)
+                .recordStats(() -> stats)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recipe.search");
+    }
+
+    /**
+     * Gets the results for the search from the cache.
+     * @param key
+     *        canonical search
+     * @return results for the search or null if not cached or stale.
+     */
+    public RecipeResponse get(SearchKey key) {
+        boolean stale = cache.policy().expireAfterWrite()
+                .flatMap(expiration -> expiration.ageOf(key))
+                .map(age -> age.compareTo(ttl) > 0)
+                .orElse(false);
+        if (stale) {
+            stats.recordMisses(1);
+            return null;
+        }
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Gets the results for the search even if they are stale.
+     * @param key
+     *        canonical search
+     * @return results for the search or null if not cached.
+     */
+    public RecipeResponse getStale(SearchKey key) {
+        return cache.policy().getIfPresentQuietly(key);
+    }
+
+    /**
+     * Adds results for the search to the cache.
+     * @param key
+     *        canonical search
+     * @param response
+     *        results for the search
+     */
+    public void put(SearchKey key, RecipeResponse response) {
+        if (response == null) return;
+        cache.put(key, response);
+    }
+
+    /**
+     * Estimates the size of the results in bytes.
+     * @param key
+     *        key of the entry
+     * @param response
+     *        results of the entry
+     * @return estimated size.
+     */
+    private static int weigh(SearchKey key, RecipeResponse response) {
+        int weight = 256;
+        if (response.getResults() == null) return weight;
+        for (ShortRecipe recipe : response.getResults()) {
+            weight += 64;
+            if (recipe.getTitle() != null) weight += recipe.getTitle().length() * 2;
+            if (recipe.getImage() != null) weight += recipe.getImage().length() * 2;
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.recipe.api;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Canonical form of a search to the API.
+ * Values are trimmed and lowercased and comma separated filters are sorted,
+ * so "italian,asian" and "asian, italian" are the same search.
+ */
+@SuppressWarnings("unused")
+public final class SearchKey {
+    private final String search;
+    private final String ingredients;
+    private final String cuisine;
+    private final String diet;
+    private final String intolerances;
+    private final String type;
+    private final String sort;
+    private final String sortDirection;
+    private final int offset;
+
+    private SearchKey(String search, String ingredients, String cuisine, String diet, String intolerances, String type, String sort, String sortDirection, int offset) {
+        this.search = search;
+        this.ingredients = ingredients;
+        this.cuisine = cuisine;
+        this.diet = diet;
+        this.intolerances = intolerances;
+        this.type = type;
+        this.sort = sort;
+        this.sortDirection = sortDirection;
+        this.offset = offset;
+    }
+
+    /**
+     * Creates the canonical key for a search.
+     * @param search
+     *        Recipes to get from the API
+     * @param ingredients
+     *        Comma separated ingredients included in the recipe
+     * @param cuisine
+     *        Comma separated cuisines
+     * @param diet
+     *        Comma separated diets
+     * @param intolerances
+     *        Comma separated intolerances
+     * @param type
+     *        The type of food the recipe is, e.g. breakfast
+     * @param sort
+     *        Ways to sort the results
+     * @param sortDirection
+     *        Ascending or descending
+     * @param offset
+     *        The amount of recipes to skip
+     * @return the canonical key.
+     */
+    public static SearchKey of(String search, String ingredients, String cuisine, String diet, String intolerances, String type, String sort, String sortDirection, int offset) {
+        return new SearchKey(
+                normalize(search),
+                normalizeList(ingredients),
+                normalizeList(cuisine),
+                normalizeList(diet),
+                normalizeList(intolerances),
+                normalize(type),
+                normalize(sort),
+                normalize(sortDirection),
+                offset);
+    }
+
+    private static String normalize(String value) {
+        if (value == null) return "";
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeList(String value) {
+        if (value == null) return "";
+        return Arrays.stream(value.split(","))
+                .map(SearchKey::normalize)
+                .filter(item -> !item.isEmpty())
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Gets the values of the key as uri variables for the complexSearch call.
+     * @return map of uri variables.
+     */
+    public Map<String, Object> toUriVariables() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("query", search);
+        variables.put("includeIngredients", ingredients);
+        variables.put("cuisine", cuisine);
+        variables.put("diet", diet);
+        variables.put("intolerances", intolerances);
+        variables.put("type", type);
+        variables.put("sort", sort);
+        variables.put("sortDirection", sortDirection);
+        variables.put("offset", offset);
+        return variables;
+    }
+
+    public String getSearch() {
+        return search;
+    }
+
+    public String getIngredients() {
+        return ingredients;
+    }
+
+    public String getCuisine() {
+        return cuisine;
+    }
+
+    public String getDiet() {
+        return diet;
+    }
+
+    public String getIntolerances() {
+        return intolerances;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public String getSortDirection() {
+        return sortDirection;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        SearchKey other = (SearchKey) obj;
+        return offset == other.offset
+                && search.equals(other.search)
+                && ingredients.equals(other.ingredients)
+                && cuisine.equals(other.cuisine)
+                && diet.equals(other.diet)
+                && intolerances.equals(other.intolerances)
+                && type.equals(other.type)
+                && sort.equals(other.sort)
+                && sortDirection.equals(other.sortDirection);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(search, ingredients, cuisine, diet, intolerances, type, sort, sortDirection, offset);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchKey{" + toUriVariables() + "}";
+    }
+}
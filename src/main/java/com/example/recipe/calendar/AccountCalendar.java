@@ -0,0 +1,157 @@
+package com.example.recipe.calendar;
+
+import com.example.recipe.recipe.CalendarEntry;
+import com.example.recipe.recipe.Day;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calendar of one account as two bits per day, scheduled and finished, from the first date of the account on.
+ * The dates of the recipes are kept next to the bits, so a day is worked out again when one of its recipes changes.
+ * Dates outside the years 1900 to 2200 aren't shown, so one odd date can't make the bits large.
+ */
+final class AccountCalendar {
+    private static final long MIN_DAY = LocalDate.of(1900, 1, 1).toEpochDay();
+    private static final long MAX_DAY = LocalDate.of(2200, 12, 31).toEpochDay();
+
+    private final Map<Integer, LocalDate> dates = new HashMap<>();
+    private final Map<Integer, Boolean> finished = new HashMap<>();
+    private final BitSet scheduledDays = new BitSet();
+    private final BitSet finishedDays = new BitSet();
+    private long firstDay;
+
+    /**
+     * @param entries
+     *        the recipes of the account with a date
+     */
+    AccountCalendar(List<CalendarEntry> entries) {
+        for (CalendarEntry entry : entries) {
+            dates.put(entry.getId(), entry.getToDoDate());
+            finished.put(entry.getId(), Boolean.TRUE.equals(entry.getFinished()));
+        }
+        index();
+    }
+
+    /**
+     * Gets the state of the days in a range.
+     * @param from
+     *        first day, inclusive
+     * @param to
+     *        last day, inclusive
+     * @return Day for each day, 0 with nothing scheduled, 1 when scheduled and 2 when finished.
+     */
+    synchronized List<Day> days(LocalDate from, LocalDate to) {
+        List<Day> days = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            int state = 0;
+            if (shown(date) && date.toEpochDay() >= firstDay) {
+                int day = (int) (date.toEpochDay() - firstDay);
+                if (finishedDays.get(day)) state = 2;
+                else if (scheduledDays.get(day)) state = 1;
+            }
+            days.add(new Day(date, state));
+        }
+        return days;
+    }
+
+    /**
+     * Puts a recipe on a date.
+     * @param recipeId
+     *        id of the recipe
+     * @param date
+     *        the date, null to take the recipe off the calendar
+     * @param isFinished
+     *        if the recipe is finished
+     */
+    synchronized void put(int recipeId, LocalDate date, boolean isFinished) {
+        LocalDate old = dates.remove(recipeId);
+        finished.remove(recipeId);
+        if (date != null) {
+            dates.put(recipeId, date);
+            finished.put(recipeId, isFinished);
+        }
+        update(old);
+        update(date);
+    }
+
+    /**
+     * Moves a recipe on the calendar.
+     * @param recipeId
+     *        id of the recipe
+     * @param date
+     *        the new date, null to take the recipe off the calendar
+     * @return false if the recipe had no date, its finished state isn't known then.
+     */
+    synchronized boolean move(int recipeId, LocalDate date) {
+        if (!dates.containsKey(recipeId)) return date == null;
+        put(recipeId, date, finished.get(recipeId));
+        return true;
+    }
+
+    /**
+     * Sets finished on recipes, recipes without a date are skipped.
+     * @param recipeIds
+     *        ids of the recipes
+     * @param isFinished
+     *        finished to be set
+     */
+    synchronized void finish(Collection<Integer> recipeIds, boolean isFinished) {
+        for (Integer recipeId : recipeIds) {
+            if (dates.containsKey(recipeId)) put(recipeId, dates.get(recipeId), isFinished);
+        }
+    }
+
+    /**
+     * Works out the bits of a day from the recipes on it.
+     * @param date
+     *        the day, nothing is done for null or a day not shown
+     */
+    private void update(LocalDate date) {
+        if (date == null || !shown(date)) return;
+        if (date.toEpochDay() < firstDay) {
+            index();
+            return;
+        }
+        boolean scheduled = false;
+        boolean done = false;
+        for (Map.Entry<Integer, LocalDate> entry : dates.entrySet()) {
+            if (!entry.getValue().equals(date)) continue;
+            scheduled = true;
+            done |= finished.get(entry.getKey());
+        }
+        int day = (int) (date.toEpochDay() - firstDay);
+        scheduledDays.set(day, scheduled);
+        finishedDays.set(day, done);
+    }
+
+    /**
+     * Sets all bits again, starting from the first date.
+     */
+    private void index() {
+        scheduledDays.clear();
+        finishedDays.clear();
+        firstDay = dates.values().stream().filter(AccountCalendar::shown)
+                .mapToLong(LocalDate::toEpochDay).min().orElse(LocalDate.now().toEpochDay());
+        for (Map.Entry<Integer, LocalDate> entry : dates.entrySet()) {
+            if (!shown(entry.getValue())) continue;
+            int day = (int) (entry.getValue().toEpochDay() - firstDay);
+            scheduledDays.set(day);
+            if (finished.get(entry.getKey())) finishedDays.set(day);
+        }
+    }
+
+    /**
+     * @param date
+     *        a date
+     * @return true if the date is in the years shown.
+     */
+    private static boolean shown(LocalDate date) {
+        return date.toEpochDay() >= MIN_DAY && date.toEpochDay() <= MAX_DAY;
+    }
+}
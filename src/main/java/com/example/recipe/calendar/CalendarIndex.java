@@ -0,0 +1,157 @@
+package com.example.recipe.calendar;
+
+import com.example.recipe.recipe.Day;
+import com.example.recipe.recipe.RecipeRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Calendars of accounts kept in memory, so a range of days is read without a query.
+ * The calendar of an account is loaded with one query on the first read and changed by the recipe writes after they commit.
+ * A change waits for a load of the same calendar that is running and is applied to the loaded calendar, as the load may
+ * have read the rows before the change committed. Changes set the state of a recipe, so applying one twice is harmless.
+ * Calendars are only kept on this instance, the ttl bounds how long a change made on another instance isn't seen.
+ * Hits, misses and evictions are published under the cache name recipe.calendar.
+ */
+@Component
+public class CalendarIndex {
+    private final RecipeRepository recipeRepository;
+    private final Cache<Integer, AccountCalendar> cache;
+
+    public CalendarIndex(RecipeRepository recipeRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${recipe.calendar.ttl:10m}") Duration ttl,
+                         @Value("${recipe.calendar.max-accounts:10000}") long maxAccounts) {
+        this.recipeRepository = recipeRepository;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxAccounts)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recipe.calendar");
+    }
+
+    /**
+     * Gets the state of the days in a range for the account, loading its calendar if it isn't kept.
+     * @param accountId
+     *        id of the account
+     * @param from
+     *        first day, inclusive
+     * @param to
+     *        last day, inclusive
+     * @return Day for each day, 0 with nothing scheduled, 1 when scheduled and 2 when finished.
+     */
+    public List<Day> days(int accountId, LocalDate from, LocalDate to) {
+        return cache.get(accountId, id -> new AccountCalendar(recipeRepository.getCalendar(id))).days(from, to);
+    }
+
+    /**
+     * Puts a new recipe on the calendar of the account.
+     * @param accountId
+     *        id of the account owning the recipe
+     * @param recipeId
+     *        id of the recipe
+     * @param date
+     *        date of the recipe
+     * @param isFinished
+     *        if the recipe is finished
+     */
+    public void scheduled(int accountId, int recipeId, LocalDate date, boolean isFinished) {
+        afterCommit(accountId, calendar -> {
+            calendar.put(recipeId, date, isFinished);
+            return true;
+        });
+    }
+
+    /**
+     * Moves a recipe on the calendar of the account.
+     * The calendar is dropped if the recipe wasn't on it, as its finished state isn't known here.
+     * @param accountId
+     *        id of the account owning the recipe
+     * @param recipeId
+     *        id of the recipe
+     * @param date
+     *        the new date, null to take the recipe off the calendar
+     */
+    public void moved(int accountId, int recipeId, LocalDate date) {
+        afterCommit(accountId, calendar -> calendar.move(recipeId, date));
+    }
+
+    /**
+     * Sets finished on recipes on the calendar of the account.
+     * @param accountId
+     *        id of the account owning the recipes
+     * @param recipeIds
+     *        ids of the recipes
+     * @param isFinished
+     *        finished to be set
+     */
+    public void finished(int accountId, Collection<Integer> recipeIds, boolean isFinished) {
+        afterCommit(accountId, calendar -> {
+            calendar.finish(recipeIds, isFinished);
+            return true;
+        });
+    }
+
+    /**
+     * Takes a deleted recipe off the calendar of the account.
+     * @param accountId
+     *        id of the account owning the recipe
+     * @param recipeId
+     *        id of the recipe
+     */
+    public void removed(int accountId, int recipeId) {
+        afterCommit(accountId, calendar -> {
+            calendar.put(recipeId, null, false);
+            return true;
+        });
+    }
+
+    /**
+     * Drops the calendar of the account.
+     * @param accountId
+     *        id of the account
+     */
+    public void evict(int accountId) {
+        afterCommit(accountId, calendar -> false);
+    }
+
+    /**
+     * Changes the calendar of the account once the running transaction commits, or now without one.
+     * Nothing is done if the calendar isn't kept, it is loaded with the change on the next read.
+     * A load of the calendar that is running is waited for, so the change isn't lost when the load read the rows before it.
+     * @param accountId
+     *        id of the account
+     * @param change
+     *        change to the calendar, dropping the calendar when it returns false
+     */
+    private void afterCommit(int accountId, CalendarChange change) {
+        Runnable apply = () -> cache.asMap().compute(accountId,
+                (id, calendar) -> calendar == null || !change.apply(calendar) ? null : calendar);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    private interface CalendarChange {
+        boolean apply(AccountCalendar calendar);
+    }
+}
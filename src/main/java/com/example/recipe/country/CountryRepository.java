@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,4 +24,13 @@ public interface CountryRepository extends PagingAndSortingRepository<Country, I
      */
     @Query(value = "SELECT * FROM country c WHERE c.country_name = ?1", nativeQuery = true)
     Optional<Country> getCountryByName(String name);
-}
\ No newline at end of file
+
+    /**
+     * Query to get the countries by names
+     * @param names
+     *        names of the countries wanted
+     * @return countries with the names
+     */
+    @Query(value = "SELECT * FROM country c WHERE c.country_name IN (?1)", nativeQuery = true)
+    List<Country> getCountriesByNames(Collection<String> names);
+}
@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -21,4 +23,13 @@ public interface IngredientRepository extends PagingAndSortingRepository<Ingredi
      */
     @Query(value = "SELECT * FROM ingredient i WHERE i.ingredient_name = ?1", nativeQuery = true)
     Optional<Ingredient> getIngredientByName(String name);
-}
\ No newline at end of file
+
+    /**
+     * Query to get the ingredients by names
+     * @param names
+     *        names of the ingredients wanted
+     * @return ingredients with the names
+     */
+    @Query(value = "SELECT * FROM ingredient i WHERE i.ingredient_name IN (?1)", nativeQuery = true)
+    List<Ingredient> getIngredientsByNames(Collection<String> names);
+}
@@ -0,0 +1,53 @@
+package com.example.recipe.recipe;
+
+import java.util.List;
+
+/**
+ * Class to change the same state on many recipes at once.
+ */
+@SuppressWarnings("unused")
+public class BulkUpdate {
+    private List<Integer> ids;
+    private Operation operation;
+    private Boolean value;
+
+    /**
+     * State that can be changed in bulk.
+     */
+    public enum Operation {
+        FAVOURITE, DO_LATER, FINISHED
+    }
+
+    public BulkUpdate(List<Integer> ids, Operation operation, Boolean value) {
+        this.ids = ids;
+        this.operation = operation;
+        this.value = value;
+    }
+
+    public BulkUpdate() {
+    }
+
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Integer> ids) {
+        this.ids = ids;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public Boolean getValue() {
+        return value;
+    }
+
+    public void setValue(Boolean value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.recipe.recipe;
+
+import java.time.LocalDate;
+
+/**
+ * Interface to query the dates and states of recipes for the calendar from the database.
+ */
+public interface CalendarEntry {
+    int getId();
+    LocalDate getToDoDate();
+    Boolean getFinished();
+}
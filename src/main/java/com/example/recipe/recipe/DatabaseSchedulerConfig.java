@@ -0,0 +1,32 @@
+package com.example.recipe.recipe;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Configuration for the scheduler used for blocking database work in reactive calls.
+ * It has as many threads as the connection pool has connections, so reactive calls can't
+ * queue up more database work than the pool can serve at once.
+ */
+@SuppressWarnings("unused")
+@Configuration
+public class DatabaseSchedulerConfig {
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int threads;
+
+    @Value("${recipe.db.scheduler.queue:1000}")
+    private int queue;
+
+    /**
+     * Creates the scheduler for database work.
+     * @return bounded scheduler for database work.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler databaseScheduler() {
+        return Schedulers.newBoundedElastic(threads, queue, "recipe-db");
+    }
+}
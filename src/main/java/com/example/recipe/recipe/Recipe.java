@@ -18,7 +18,11 @@ import java.util.List;
  */
 @SuppressWarnings("unused")
 @Entity
-@Table(name="recipe")
+@Table(name="recipe", indexes = {
+        @Index(name = "recipe_account_favourite", columnList = "recipe_account, recipe_favourite, recipe_id"),
+        @Index(name = "recipe_account_do_later", columnList = "recipe_account, recipe_doLater, recipe_id"),
+        @Index(name = "recipe_account_to_do_date", columnList = "recipe_account, recipe_toDoDate")
+})
 public class Recipe {
 
     @Id
@@ -63,6 +67,7 @@ public class Recipe {
     @JoinColumn(name = "recipe_id")
     @OnDelete(action = OnDeleteAction.CASCADE)
     @Column(name = "recipe_instructions", nullable = false)
+    @OrderBy("id")
     private List<Instruction> instructions;
 
     @ManyToMany(cascade={CascadeType.REMOVE, CascadeType.MERGE})
@@ -1,17 +1,24 @@
 package com.example.recipe.recipe;
 
+import com.example.recipe.response.BulkRes;
 import com.example.recipe.response.FullRecipeRes;
 import com.example.recipe.response.ListRes;
 import com.example.recipe.response.RecipeRes;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.util.List;
 
 /**
  * Controller for recipe calls
+ * Calls to the recipe API are returned as Mono, so no request thread waits for the API.
  */
 @RestController
 @RequestMapping("/recipe")
@@ -39,60 +46,80 @@ public class RecipeController {
     /**
      * PUT API call to /recipe/favourite?recipeId=(id)
      * Toggles favourite on the selected recipe
-     * Authorization with isOwnRecipe()
+     * Only the users own recipe is changed, otherwise forbidden.
      * @param recipeId
      *        id of recipe to be changed
+     * @param accountId
+     *        id of the authenticated account
      * @return true if successful, error otherwise.
      */
-    @PreAuthorize("@authorization.isOwnRecipe(authentication, #recipeId)")
     @PutMapping("/set/favourite")
-    public Boolean favourite(@RequestParam("recipeId") int recipeId) {
-        return recipeService.toggleFavourite(recipeId);
+    public Boolean favourite(@RequestParam("recipeId") int recipeId, @AuthenticationPrincipal(expression = "id") int accountId) {
+        return recipeService.toggleFavourite(recipeId, accountId);
     }
 
     /**
      * PUT API call to /recipe/doLater?recipeId=(id)
      * Toggles doLater on the selected recipe
-     * Authorization with isOwnRecipe()
+     * Only the users own recipe is changed, otherwise forbidden.
      * @param recipeId
      *        id of recipe to be changed
+     * @param accountId
+     *        id of the authenticated account
      * @return true if successful, error otherwise.
      */
-    @PreAuthorize("@authorization.isOwnRecipe(authentication, #recipeId)")
     @PutMapping("/set/doLater")
-    public Boolean doLater(@RequestParam("recipeId") int recipeId) {
-        return recipeService.toggleDoLater(recipeId);
+    public Boolean doLater(@RequestParam("recipeId") int recipeId, @AuthenticationPrincipal(expression = "id") int accountId) {
+        return recipeService.toggleDoLater(recipeId, accountId);
     }
 
 
     /**
      * PUT API call to /recipe/finished?recipeId=(id)
      * Sets recipe as finished.
-     * Authorization with isOwnRecipe()
+     * Only the users own recipe is changed, otherwise forbidden.
      * @param recipeId
      *        id of the recipe to be marked as finished
+     * @param accountId
+     *        id of the authenticated account
      * @return true if successful, error otherwise.
      */
-    @PreAuthorize("@authorization.isOwnRecipe(authentication, #recipeId)")
     @PutMapping("/set/finished")
-    public Boolean finished(@RequestParam("recipeId") int recipeId) {
-        return recipeService.finishRecipe(recipeId);
+    public Boolean finished(@RequestParam("recipeId") int recipeId, @AuthenticationPrincipal(expression = "id") int accountId) {
+        return recipeService.finishRecipe(recipeId, accountId);
     }
 
     /**
      * PUT API call to /recipe/set/calendar?recipeId=(id)&date=(date)
      * Sets date for recipe.
-     * Authorization with isOwnRecipe()
+     * Only the users own recipe is changed, otherwise forbidden.
      * @param recipeId
      *        id of the recipe
      * @param date
      *        date wanted for the recipe
+     * @param accountId
+     *        id of the authenticated account
      * @return true if successful, error otherwise.
      */
-    @PreAuthorize("@authorization.isOwnRecipe(authentication, #recipeId)")
     @PutMapping("/set/calendar")
-    public Boolean finished(@RequestParam("recipeId") int recipeId, @RequestParam("date") LocalDate date) {
-        return recipeService.setDate(recipeId, date);
+    public Boolean finished(@RequestParam("recipeId") int recipeId, @RequestParam("date") LocalDate date, @AuthenticationPrincipal(expression = "id") int accountId) {
+        return recipeService.setDate(recipeId, accountId, date);
+    }
+
+    /**
+     * PUT API call to /recipe/set/bulk
+     * with ids, operation and value in body
+     * Sets favourite, doLater or finished on many recipes at once.
+     * Only the users own recipes are changed, the others are reported as forbidden.
+     * @param update
+     *        ids of the recipes, operation and value to be set
+     * @param accountId
+     *        id of the authenticated account
+     * @return outcome for each recipe id.
+     */
+    @PutMapping("/set/bulk")
+    public BulkRes bulk(@RequestBody BulkUpdate update, @AuthenticationPrincipal(expression = "id") int accountId) {
+        return recipeService.bulkUpdate(update, accountId);
     }
 
     /**
@@ -122,15 +149,15 @@ public class RecipeController {
      * @return List of results from API and if there is more results.
      */
     @GetMapping("/get/api/search")
-    public ListRes search(@RequestParam("search") String search,
-                          @RequestParam("ingredients") List<String> ingredients,
-                          @RequestParam("cuisine") List<String> cuisine,
-                          @RequestParam("diet") List<String> diet,
-                          @RequestParam("intolerances") List<String> intolerances,
-                          @RequestParam("type") String type,
-                          @RequestParam("sort") String sort,
-                          @RequestParam("sortDirection") String sortDirection,
-                          @RequestParam("page") int page){
+    public Mono<ListRes> search(@RequestParam("search") String search,
+                                @RequestParam("ingredients") List<String> ingredients,
+                                @RequestParam("cuisine") List<String> cuisine,
+                                @RequestParam("diet") List<String> diet,
+                                @RequestParam("intolerances") List<String> intolerances,
+                                @RequestParam("type") String type,
+                                @RequestParam("sort") String sort,
+                                @RequestParam("sortDirection") String sortDirection,
+                                @RequestParam("page") int page){
         return recipeService.getSearch(search, ingredients, cuisine, diet, intolerances, type, sort, sortDirection, page);
     }
 
@@ -142,17 +169,23 @@ public class RecipeController {
      * @return Recipe from the API.
      */
     @GetMapping("/get/api/id")
-    public RecipeRes searchById(@RequestParam("id") int id) {
+    public Mono<RecipeRes> searchById(@RequestParam("id") int id) {
         return recipeService.getSearchById(id);
     }
 
     /**
      * GET API call to /recipe/get/api/random
      * Gets 12 random recipes from the API.
+     * @param request
+     *        request used to tell callers apart
      * @return 12 random recipes
      */
     @GetMapping("/get/api/random")
-    public ListRes getRandom() { return recipeService.getRandom(); }
+    public Mono<ListRes> getRandom(HttpServletRequest request) {
+        String caller = request.getHeader("Fly-Client-IP");
+        if (caller == null) caller = request.getRemoteAddr();
+        return recipeService.getRandom(caller);
+    }
 
     /**
      * GET API call to /recipe/get/favourite?accountId=(id)&page=(page)
@@ -160,12 +193,17 @@ public class RecipeController {
      * @param accountId
      *        id of account to be searched for
      * @param page
-     *        page that we want results for
-     * @return ListRes object with favourite recipes and if there is a next page.
+     *        page that we want results for, used without a cursor
+     * @param cursor
+     *        cursor from the previous page
+     * @return ListRes object with favourite recipes, if there is a next page and its cursor.
      */
     @PreAuthorize("#accountId == authentication.principal.id")
     @GetMapping("/get/favourite")
-    public ListRes getFavourite(@RequestParam("accountId") int accountId, @RequestParam("page") int page) {
+    public ListRes getFavourite(@RequestParam("accountId") int accountId,
+                                @RequestParam(value = "page", defaultValue = "0") int page,
+                                @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) return recipeService.getFavouriteAfter(accountId, cursor);
         return recipeService.getFavourite(accountId, page);
     }
 
@@ -175,12 +213,17 @@ public class RecipeController {
      * @param accountId
      *        id of account to be searched for
      * @param page
-     *        page that we want results for
-     * @return ListRes object with doLater recipes and if there is a next page.
+     *        page that we want results for, used without a cursor
+     * @param cursor
+     *        cursor from the previous page
+     * @return ListRes object with doLater recipes, if there is a next page and its cursor.
      */
     @PreAuthorize("#accountId == authentication.principal.id")
     @GetMapping("/get/doLater")
-    public ListRes getDoLater(@RequestParam("accountId") int accountId, @RequestParam("page") int page) {
+    public ListRes getDoLater(@RequestParam("accountId") int accountId,
+                              @RequestParam(value = "page", defaultValue = "0") int page,
+                              @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) return recipeService.getDoLaterAfter(accountId, cursor);
         return recipeService.getDoLater(accountId, page);
     }
 
@@ -189,12 +232,12 @@ public class RecipeController {
      * Gets recipe with specified ID from the database.
      * @param recipeId
      *        id of recipe to be searched for.
-     * @return Recipe from the database.
+     * @return Recipe from the database as JSON.
      */
     @PreAuthorize("@authorization.isOwnRecipe(authentication, #recipeId)")
     @GetMapping("/get/db")
-    public FullRecipeRes getRecipeFromDB(@RequestParam("recipeId") int recipeId) {
-        return recipeService.getRecipe(recipeId);
+    public ResponseEntity<byte[]> getRecipeFromDB(@RequestParam("recipeId") int recipeId) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(recipeService.getRecipe(recipeId));
     }
 
     /**
@@ -212,6 +255,25 @@ public class RecipeController {
         return recipeService.getRecipeForDate(accountId, date);
     }
 
+    /**
+     * GET API call to /recipe/get/calendar?accountId=(id)&from=(date)&to=(date)
+     * Gets the state of every day in the range, for month and year views.
+     * @param accountId
+     *        id of account that is searching
+     * @param from
+     *        first day, inclusive
+     * @param to
+     *        last day, inclusive, at most a year after from
+     * @return Day for each day of the range.
+     */
+    @PreAuthorize("#accountId == authentication.principal.id")
+    @GetMapping("/get/calendar")
+    public List<Day> getCalendar(@RequestParam("accountId") int accountId,
+                                 @RequestParam("from") LocalDate from,
+                                 @RequestParam("to") LocalDate to) {
+        return recipeService.getCalendarRange(accountId, from, to);
+    }
+
     /**
      * DELETE API call to /api/recipe/del?recipeId=(id)
      * Deletes recipe with ID from the database.
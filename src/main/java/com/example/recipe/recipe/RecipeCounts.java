@@ -0,0 +1,10 @@
+package com.example.recipe.recipe;
+
+/**
+ * Interface to query the done, favourite and doLater counts of an account from the database.
+ */
+public interface RecipeCounts {
+    int getDone();
+    int getFavourite();
+    int getDoLater();
+}
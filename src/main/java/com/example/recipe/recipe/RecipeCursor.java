@@ -0,0 +1,49 @@
+package com.example.recipe.recipe;
+
+import exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Continuation token of a recipe list.
+ * The token holds the id of the last recipe on the page, the next page starts after it,
+ * so it stays correct when recipes are added or removed between the pages.
+ */
+final class RecipeCursor {
+    private static final String PREFIX = "r1:";
+
+    private RecipeCursor() {
+    }
+
+    /**
+     * Creates the token for a page ending with the recipe.
+     * @param lastId
+     *        id of the last recipe on the page
+     * @return the token.
+     */
+    static String encode(int lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a token.
+     * @param cursor
+     *        the token, null or empty for the first page
+     * @return id of the recipe the page starts after, 0 for the first page.
+     */
+    static int decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return 0;
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) throw new BadRequestException("Invalid cursor");
+            int lastId = Integer.parseInt(value.substring(PREFIX.length()));
+            if (lastId < 0) throw new BadRequestException("Invalid cursor");
+            return lastId;
+        }
+        catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.recipe.recipe;
+
+import java.time.LocalDate;
+
+/**
+ * Interface to query the owner and the states and date of a recipe, the parts of a saved recipe that change, from the database.
+ */
+public interface RecipeFlags {
+    Integer getAccountId();
+    Boolean getFavourite();
+    Boolean getDoLater();
+    Boolean getFinished();
+    LocalDate getToDoDate();
+}
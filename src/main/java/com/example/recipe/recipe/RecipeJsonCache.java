@@ -0,0 +1,121 @@
+package com.example.recipe.recipe;
+
+import com.example.recipe.response.FullRecipeRes;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import exceptions.DatabaseException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.IntFunction;
+
+/**
+ * Cache of saved recipes as JSON, without the states and date that change after the recipe is added.
+ * The rest of a saved recipe doesn't change, so it is serialized once and the states and date are appended
+ * to the bytes on every read.
+ * Bounded by the size of the JSON in bytes, entries expire after the ttl so a recipe deleted and added again
+ * on another instance isn't served old for long.
+ * Hits, misses and evictions are published under the cache name recipe.json.
+ */
+@Component
+public class RecipeJsonCache {
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Integer, byte[]> cache;
+
+    public RecipeJsonCache(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${recipe.json.cache.ttl:1h}") Duration ttl,
+                           @Value("${recipe.json.cache.max-size:16MB}") DataSize maxSize) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Integer id, byte[] json) -> json.length + ENTRY_OVERHEAD)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recipe.json");
+    }
+
+    /**
+     * Gets the recipe as JSON with its current states and date.
+     * @param recipeId
+     *        id of the recipe
+     * @param flags
+     *        current states and date of the recipe
+     * @param load
+     *        reads the recipe when it isn't cached
+     * @return the recipe as JSON.
+     */
+    public byte[] get(int recipeId, RecipeFlags flags, IntFunction<FullRecipeRes> load) {
+        byte[] content = cache.get(recipeId, id -> content(load.apply(id)));
+        ByteArrayOutputStream json = new ByteArrayOutputStream(content.length + 96);
+        json.writeBytes(content);
+        field(json, "favourite", Boolean.TRUE.equals(flags.getFavourite()) ? TRUE : FALSE);
+        field(json, "doLater", Boolean.TRUE.equals(flags.getDoLater()) ? TRUE : FALSE);
+        field(json, "finished", Boolean.TRUE.equals(flags.getFinished()) ? TRUE : FALSE);
+        field(json, "date", flags.getToDoDate() == null ? "null".getBytes(StandardCharsets.UTF_8)
+                : ("\"" + flags.getToDoDate() + "\"").getBytes(StandardCharsets.UTF_8));
+        json.write('}');
+        return json.toByteArray();
+    }
+
+    /**
+     * Drops a recipe, used when it is added or deleted.
+     * @param recipeId
+     *        id of the recipe
+     */
+    public void invalidate(int recipeId) {
+        cache.invalidate(recipeId);
+    }
+
+    /**
+     * Serializes the recipe without its states and date and without the closing brace, so fields can be appended.
+     * @param recipe
+     *        the recipe
+     * @return the JSON bytes.
+     */
+    private byte[] content(FullRecipeRes recipe) {
+        ObjectNode node = objectMapper.valueToTree(recipe);
+        node.remove("favourite");
+        node.remove("doLater");
+        node.remove("finished");
+        node.remove("date");
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(node);
+            byte[] content = new byte[json.length - 1];
+            System.arraycopy(json, 0, content, 0, content.length);
+            return content;
+        }
+        catch (JsonProcessingException e) {
+            throw new DatabaseException("error while reading recipe");
+        }
+    }
+
+    /**
+     * Appends a field to the JSON.
+     * @param json
+     *        JSON without the closing brace
+     * @param name
+     *        name of the field
+     * @param value
+     *        JSON value of the field
+     */
+    private static void field(ByteArrayOutputStream json, String name, byte[] value) {
+        json.write(',');
+        json.writeBytes(("\"" + name + "\":").getBytes(StandardCharsets.UTF_8));
+        json.writeBytes(value);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.recipe.recipe;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Owners of recipes kept in memory, so the ownership checks don't load the recipe.
+ * An owner is read with a query on recipe_account only, missing recipes aren't kept.
+ * Recipe ids come from the recipe API, so a deleted recipe can be added again by another account.
+ * Owners are dropped when a recipe is added or deleted here, the ttl bounds how long a change on another instance isn't seen.
+ * Hits, misses and evictions are published under the cache name recipe.owners.
+ */
+@Component
+public class RecipeOwners {
+    private final RecipeRepository recipeRepository;
+    private final Cache<Integer, Integer> cache;
+
+    public RecipeOwners(RecipeRepository recipeRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${recipe.owners.ttl:1m}") Duration ttl,
+                        @Value("${recipe.owners.max-size:20000}") long maxSize) {
+        this.recipeRepository = recipeRepository;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recipe.owners");
+    }
+
+    /**
+     * Gets the owner of a recipe.
+     * @param recipeId
+     *        id of the recipe
+     * @return id of the account owning the recipe, null if there is no recipe with id.
+     */
+    public Integer owner(int recipeId) {
+        return cache.get(recipeId, id -> recipeRepository.getOwner(id).orElse(null));
+    }
+
+    /**
+     * Drops the owner of a recipe once the running transaction commits, and now.
+     * Dropping it again after the commit keeps a read made during the transaction from keeping the old owner.
+     * @param recipeId
+     *        id of the recipe
+     */
+    public void invalidate(int recipeId) {
+        cache.invalidate(recipeId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidate(recipeId);
+            }
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.recipe.recipe;
+
+import com.example.recipe.ingredient.Ingredient;
+import com.example.recipe.response.FullRecipeRes;
+import com.example.recipe.response.MeasurementRes;
+import com.example.recipe.unit.Unit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads full recipes straight into FullRecipeRes for the read-only views.
+ * No entities are made, so nothing is kept in the persistence context or checked for changes.
+ * A recipe is two statements, its row and one union of its measurements, instructions, types, countries and categories.
+ */
+@Component
+public class RecipeReader {
+    private static final String RECIPE = "SELECT r.recipe_id, r.recipe_title, r.recipe_image, r.recipe_servings, r.recipe_time, r.recipe_original, "
+            + "r.recipe_description, r.recipe_health_score, r.recipe_account, r.recipe_favourite, r.recipe_do_later, r.recipe_finished, r.recipe_to_do_date "
+            + "FROM recipe r ";
+
+    private static final String PARTS = "SELECT 1 AS part, m.measurement_id AS ord, m.measurement_amount AS amount, "
+            + "g.ingredient_id AS ingredient_id, g.ingredient_name AS name, u.unit_id AS unit_id, u.unit_name AS unit_name "
+            + "FROM measurement m LEFT JOIN ingredient g ON g.ingredient_id = m.measurement_ingredient "
+            + "LEFT JOIN unit u ON u.unit_id = m.measurement_unit WHERE m.recipe_id = ? "
+            + "UNION ALL SELECT 2, i.instruction_id, NULL, NULL, i.instruction_body, NULL, NULL FROM instruction i WHERE i.recipe_id = ? "
+            + "UNION ALL SELECT 3, t.type_id, NULL, NULL, t.type_name, NULL, NULL FROM recipe_type_mapping x JOIN type t ON t.type_id = x.type_id WHERE x.recipe_type = ? "
+            + "UNION ALL SELECT 4, c.country_id, NULL, NULL, c.country_name, NULL, NULL FROM recipe_country_mapping x JOIN country c ON c.country_id = x.country_id WHERE x.recipe_country = ? "
+            + "UNION ALL SELECT 5, c.category_id, NULL, NULL, c.category_name, NULL, NULL FROM recipe_category_mapping x JOIN category c ON c.category_id = x.category_id WHERE x.recipe_category = ? "
+            + "ORDER BY part, ord";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RecipeReader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reads recipe with id.
+     * @param recipeId
+     *        id of the recipe
+     * @return the recipe, empty if there is no recipe with id.
+     */
+    public Optional<FullRecipeRes> getRecipe(int recipeId) {
+        return read(jdbcTemplate.query(RECIPE + "WHERE r.recipe_id = ?", RecipeReader::recipe, recipeId));
+    }
+
+    /**
+     * Reads recipe for account with date.
+     * @param accountId
+     *        id for account
+     * @param date
+     *        wanted date for recipe
+     * @return the recipe, empty if the account has no recipe for the date.
+     */
+    public Optional<FullRecipeRes> getRecipeForDate(int accountId, LocalDate date) {
+        return read(jdbcTemplate.query(RECIPE + "WHERE r.recipe_account = ? AND r.recipe_to_do_date = ?",
+                RecipeReader::recipe, accountId, date));
+    }
+
+    /**
+     * Reads the measurements, instructions and labels of the found recipe into it.
+     * @param recipes
+     *        found recipes, only the first one is used like with a single result query
+     * @return the recipe, empty if none was found.
+     */
+    private Optional<FullRecipeRes> read(List<FullRecipeRes> recipes) {
+        if (recipes.isEmpty()) return Optional.empty();
+        FullRecipeRes recipe = recipes.get(0);
+        int id = recipe.getId();
+        jdbcTemplate.query(PARTS, (ResultSet rs) -> {
+            String name = rs.getString("name");
+            switch (rs.getInt("part")) {
+                case 1 -> recipe.getMeasurements().add(measurement(rs));
+                case 2 -> recipe.getInstructions().add(name);
+                case 3 -> recipe.getDishTypes().add(name);
+                case 4 -> recipe.getCuisines().add(name);
+                case 5 -> recipe.getDiets().add(name);
+            }
+        }, id, id, id, id, id);
+        return Optional.of(recipe);
+    }
+
+    /**
+     * Maps the recipe row, with empty lists for the rest.
+     * @param rs
+     *        row of the recipe
+     * @param row
+     *        number of the row
+     * @return recipe without measurements, instructions and labels.
+     */
+    private static FullRecipeRes recipe(ResultSet rs, int row) throws SQLException {
+        return new FullRecipeRes(
+                rs.getInt("recipe_id"),
+                rs.getString("recipe_title"),
+                rs.getString("recipe_image"),
+                rs.getInt("recipe_servings"),
+                rs.getInt("recipe_time"),
+                rs.getString("recipe_original"),
+                new ArrayList<>(),
+                rs.getString("recipe_description"),
+                rs.getDouble("recipe_health_score"),
+                rs.getInt("recipe_account"),
+                rs.getBoolean("recipe_favourite"),
+                rs.getBoolean("recipe_do_later"),
+                rs.getBoolean("recipe_finished"),
+                rs.getObject("recipe_to_do_date", LocalDate.class),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>()
+        );
+    }
+
+    /**
+     * Maps a measurement row, a missing ingredient or unit is left null like on the entity.
+     * @param rs
+     *        row of the measurement
+     * @return the measurement.
+     */
+    private static MeasurementRes measurement(ResultSet rs) throws SQLException {
+        int ingredientId = rs.getInt("ingredient_id");
+        Ingredient ingredient = rs.wasNull() ? null : new Ingredient(ingredientId, rs.getString("name"));
+        int unitId = rs.getInt("unit_id");
+        Unit unit = rs.wasNull() ? null : new Unit(unitId, rs.getString("unit_name"));
+        return new MeasurementRes(ingredient, rs.getFloat("amount"), unit);
+    }
+}
@@ -2,12 +2,16 @@ package com.example.recipe.recipe;
 
 import com.example.recipe.response.StatRes;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,53 +31,67 @@ public interface RecipeRepository extends PagingAndSortingRepository<Recipe, Int
     List<StatRes> getStats(int accountId);
 
     /**
-     * Query to get count of all done recipes
+     * Query to get the done, favourite and doLater counts of an account in one pass over its recipes.
+     * Always returns one row, with zeros for an account without recipes.
      * @param accountId
      *        id for account
-     * @return Count of done recipes
+     * @return RecipeCounts of the account
      */
-    @Query(value = "SELECT COUNT(*) FROM recipe r WHERE r.recipe_account = ?1 AND r.recipe_finished = 1", nativeQuery = true)
-    Optional<Integer> getDoneCount(int accountId);
+    @Query(value = "SELECT COALESCE(SUM(CASE WHEN r.recipe_finished = 1 THEN 1 ELSE 0 END), 0) AS done, " +
+            "COALESCE(SUM(CASE WHEN r.recipe_favourite = 1 THEN 1 ELSE 0 END), 0) AS favourite, " +
+            "COALESCE(SUM(CASE WHEN r.recipe_do_later = 1 THEN 1 ELSE 0 END), 0) AS doLater " +
+            "FROM recipe r WHERE r.recipe_account = ?1", nativeQuery = true)
+    RecipeCounts getCounts(int accountId);
 
     /**
-     * Query to get count of all favourite recipes
+     * Query to get favourite recipes for account
      * @param accountId
      *        id for account
-     * @return Count of favourites
+     * @param pageable
+     *        PageRequest for page.
+     * @return favourite recipes for account with page, one extra row is fetched to know if there is a next page.
      */
-    @Query(value = "SELECT COUNT(*) FROM recipe r WHERE r.recipe_account = ?1 AND r.recipe_favourite = 1", nativeQuery = true)
-    Optional<Integer> getFavouriteCount(int accountId);
+    @Query(value = "SELECT recipe_title AS title, recipe_id AS id FROM recipe r WHERE r.recipe_account = ?1 AND r.recipe_favourite = 1 ORDER BY r.recipe_id", nativeQuery = true)
+    Slice<ListRecipeRes> getFavourite(int accountId, Pageable pageable);
 
     /**
-     * Query to get count of all do Later recipes
+     * Query to get favourite recipes for account after a recipe.
+     * Seeks on the recipe_account_favourite index, so it doesn't slow down on later pages.
      * @param accountId
      *        id for account
-     * @return Count of doLater recipes
+     * @param afterId
+     *        id of the last recipe on the previous page, 0 for the first page
+     * @param pageable
+     *        PageRequest for the size of the page, always the first page.
+     * @return favourite recipes for account after the recipe, one extra row is fetched to know if there is a next page.
      */
-    @Query(value = "SELECT COUNT(*) FROM recipe r WHERE r.recipe_account = ?1 AND recipe_do_later = 1", nativeQuery = true)
-    Optional<Integer> getDoLaterCount(int accountId);
+    @Query(value = "SELECT recipe_title AS title, recipe_id AS id FROM recipe r WHERE r.recipe_account = ?1 AND r.recipe_favourite = 1 AND r.recipe_id > ?2 ORDER BY r.recipe_id", nativeQuery = true)
+    Slice<ListRecipeRes> getFavouriteAfter(int accountId, int afterId, Pageable pageable);
 
     /**
-     * Query to get favourite recipes for account
+     * Query to get doLater recipes for account
      * @param accountId
      *        id for account
      * @param pageable
      *        PageRequest for page.
-     * @return favourite recipes for account with page.
+     * @return doLater recipes for account with page, one extra row is fetched to know if there is a next page.
      */
-    @Query(value = "SELECT recipe_title AS title, recipe_id AS id FROM recipe r WHERE r.recipe_account = ?1 AND r.recipe_favourite = 1", nativeQuery = true)
-    List<ListRecipeRes> getFavourite(int accountId, Pageable pageable);
+    @Query(value = "SELECT recipe_title AS title, recipe_id AS id FROM recipe r WHERE r.recipe_account = ?1 AND r.recipe_do_later = 1 ORDER BY r.recipe_id", nativeQuery = true)
+    Slice<ListRecipeRes> getDoLater(int accountId, Pageable pageable);
 
     /**
-     * Query to get doLater recipes for account
+     * Query to get doLater recipes for account after a recipe.
+     * Seeks on the recipe_account_do_later index, so it doesn't slow down on later pages.
      * @param accountId
      *        id for account
+     * @param afterId
+     *        id of the last recipe on the previous page, 0 for the first page
      * @param pageable
-     *        PageRequest for page.
-     * @return doLater recipes for account with page.
+     *        PageRequest for the size of the page, always the first page.
+     * @return doLater recipes for account after the recipe, one extra row is fetched to know if there is a next page.
      */
-    @Query(value = "SELECT recipe_title AS title, recipe_id AS id FROM recipe r WHERE r.recipe_account = ?1 AND r.recipe_do_later = 1", nativeQuery = true)
-    List<ListRecipeRes> getDoLater(int accountId, Pageable pageable);
+    @Query(value = "SELECT recipe_title AS title, recipe_id AS id FROM recipe r WHERE r.recipe_account = ?1 AND r.recipe_do_later = 1 AND r.recipe_id > ?2 ORDER BY r.recipe_id", nativeQuery = true)
+    Slice<ListRecipeRes> getDoLaterAfter(int accountId, int afterId, Pageable pageable);
 
 
     /**
@@ -87,6 +105,42 @@ public interface RecipeRepository extends PagingAndSortingRepository<Recipe, Int
     @Query(value = "SELECT * FROM recipe r WHERE r.recipe_account = ?1 AND r.recipe_to_do_date = ?2", nativeQuery = true)
     Optional<Recipe> getByDate(int accountId, LocalDate date);
 
+    /**
+     * Query to get the owner, states and date of recipe with id
+     * @param recipeId
+     *        id of the recipe
+     * @return RecipeFlags of the recipe, empty if there is no recipe with id.
+     */
+    @Query(value = "SELECT r.recipe_account AS accountId, r.recipe_favourite AS favourite, r.recipe_do_later AS doLater, r.recipe_finished AS finished, r.recipe_to_do_date AS toDoDate FROM recipe r WHERE r.recipe_id = ?1", nativeQuery = true)
+    Optional<RecipeFlags> getFlags(int recipeId);
+
+    /**
+     * Query to get the ids of the countries of recipe with id
+     * @param recipeId
+     *        id of the recipe
+     * @return ids of the countries.
+     */
+    @Query(value = "SELECT m.country_id FROM recipe_country_mapping m WHERE m.recipe_country = ?1", nativeQuery = true)
+    List<Integer> getCountryIds(int recipeId);
+
+    /**
+     * Query to get the owner of recipe with id, without loading the recipe
+     * @param recipeId
+     *        id of the recipe
+     * @return id of the account owning the recipe, empty if there is no recipe with id.
+     */
+    @Query(value = "SELECT r.recipe_account FROM recipe r WHERE r.recipe_id = ?1", nativeQuery = true)
+    Optional<Integer> getOwner(int recipeId);
+
+    /**
+     * Query to get the dates and states of all recipes with a date for account
+     * @param accountId
+     *        id for account
+     * @return CalendarEntry of each recipe with a date.
+     */
+    @Query(value = "SELECT r.recipe_id AS id, r.recipe_to_do_date AS toDoDate, r.recipe_finished AS finished FROM recipe r WHERE r.recipe_account = ?1 AND r.recipe_to_do_date IS NOT NULL", nativeQuery = true)
+    List<CalendarEntry> getCalendar(int accountId);
+
     /**
      * Query to get all recipes for account with id
      * @param accountId
@@ -95,4 +149,114 @@ public interface RecipeRepository extends PagingAndSortingRepository<Recipe, Int
      */
     @Query(value = "SELECT * FROM recipe r WHERE r.recipe_account = ?1", nativeQuery = true)
     List<Recipe> getAllForAccount(int accountId);
+
+    /**
+     * Toggles favourite on a recipe of the account
+     * @param recipeId
+     *        id of the recipe
+     * @param accountId
+     *        id of the account owning the recipe
+     * @return amount of recipes changed, 0 if the account has no recipe with the id.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE recipe SET recipe_favourite = NOT recipe_favourite WHERE recipe_id = ?1 AND recipe_account = ?2", nativeQuery = true)
+    int toggleFavourite(int recipeId, int accountId);
+
+    /**
+     * Toggles doLater on a recipe of the account
+     * @param recipeId
+     *        id of the recipe
+     * @param accountId
+     *        id of the account owning the recipe
+     * @return amount of recipes changed, 0 if the account has no recipe with the id.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE recipe SET recipe_do_later = NOT recipe_do_later WHERE recipe_id = ?1 AND recipe_account = ?2", nativeQuery = true)
+    int toggleDoLater(int recipeId, int accountId);
+
+    /**
+     * Marks a recipe of the account as finished
+     * @param recipeId
+     *        id of the recipe
+     * @param accountId
+     *        id of the account owning the recipe
+     * @return amount of recipes changed, 0 if the account has no unfinished recipe with the id.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE recipe SET recipe_finished = TRUE WHERE recipe_id = ?1 AND recipe_account = ?2 AND recipe_finished = FALSE", nativeQuery = true)
+    int finish(int recipeId, int accountId);
+
+    /**
+     * Sets the date of a recipe of the account
+     * @param recipeId
+     *        id of the recipe
+     * @param accountId
+     *        id of the account owning the recipe
+     * @param date
+     *        date wanted for the recipe
+     * @return amount of recipes changed, 0 if the account has no recipe with the id.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE recipe SET recipe_to_do_date = ?3 WHERE recipe_id = ?1 AND recipe_account = ?2", nativeQuery = true)
+    int setDate(int recipeId, int accountId, LocalDate date);
+
+    /**
+     * Query to get which of the recipes belong to the account
+     * @param accountId
+     *        id of the account
+     * @param ids
+     *        ids of the recipes
+     * @return ids of the recipes owned by the account.
+     */
+    @Query(value = "SELECT r.recipe_id FROM recipe r WHERE r.recipe_account = ?1 AND r.recipe_id IN (?2)", nativeQuery = true)
+    List<Integer> getOwnIds(int accountId, Collection<Integer> ids);
+
+    /**
+     * Sets favourite on recipes of the account
+     * @param accountId
+     *        id of the account owning the recipes
+     * @param ids
+     *        ids of the recipes
+     * @param value
+     *        favourite to be set
+     * @return amount of recipes changed, recipes already having the value aren't counted.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE recipe SET recipe_favourite = ?3 WHERE recipe_account = ?1 AND recipe_id IN (?2) AND recipe_favourite <> ?3", nativeQuery = true)
+    int setFavourite(int accountId, Collection<Integer> ids, boolean value);
+
+    /**
+     * Sets doLater on recipes of the account
+     * @param accountId
+     *        id of the account owning the recipes
+     * @param ids
+     *        ids of the recipes
+     * @param value
+     *        doLater to be set
+     * @return amount of recipes changed, recipes already having the value aren't counted.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE recipe SET recipe_do_later = ?3 WHERE recipe_account = ?1 AND recipe_id IN (?2) AND recipe_do_later <> ?3", nativeQuery = true)
+    int setDoLater(int accountId, Collection<Integer> ids, boolean value);
+
+    /**
+     * Sets finished on recipes of the account
+     * @param accountId
+     *        id of the account owning the recipes
+     * @param ids
+     *        ids of the recipes
+     * @param value
+     *        finished to be set
+     * @return amount of recipes changed, recipes already having the value aren't counted.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE recipe SET recipe_finished = ?3 WHERE recipe_account = ?1 AND recipe_id IN (?2) AND recipe_finished <> ?3", nativeQuery = true)
+    int setFinished(int accountId, Collection<Integer> ids, boolean value);
 }
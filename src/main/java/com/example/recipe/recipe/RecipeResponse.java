@@ -10,11 +10,17 @@ import java.util.List;
 @SuppressWarnings("unused")
 public class RecipeResponse {
     private List<ShortRecipe> results;
+    private Integer totalResults;
 
     public RecipeResponse(List<ShortRecipe> results) {
         this.results = results;
     }
 
+    public RecipeResponse(List<ShortRecipe> results, Integer totalResults) {
+        this.results = results;
+        this.totalResults = totalResults;
+    }
+
     public RecipeResponse() {
     }
 
@@ -25,4 +31,12 @@ public class RecipeResponse {
     public void setResults(List<ShortRecipe> results) {
         this.results = results;
     }
+
+    public Integer getTotalResults() {
+        return totalResults;
+    }
+
+    public void setTotalResults(Integer totalResults) {
+        this.totalResults = totalResults;
+    }
 }
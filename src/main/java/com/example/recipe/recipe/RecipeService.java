@@ -1,32 +1,41 @@
 package com.example.recipe.recipe;
 
+import com.example.recipe.api.RandomRecipePool;
 import com.example.recipe.apiClasses.RecipeFormat;
 import com.example.recipe.apiClasses.RecipeIngredients;
 import com.example.recipe.apiClasses.ShortRecipe;
+import com.example.recipe.calendar.CalendarIndex;
 import com.example.recipe.category.Category;
-import com.example.recipe.category.CategoryRepository;
 import com.example.recipe.country.Country;
-import com.example.recipe.country.CountryRepository;
 import com.example.recipe.enums.*;
-import com.example.recipe.ingredient.IngredientRepository;
+import com.example.recipe.instructions.Instruction;
 import com.example.recipe.measurement.Measurement;
 import com.example.recipe.response.*;
-import com.example.recipe.type.TypeRepository;
+import com.example.recipe.stats.AccountStatsService;
 import com.example.recipe.unit.Unit;
-import com.example.recipe.unit.UnitRepository;
 import com.example.recipe.type.Type;
+import com.example.recipe.vocabulary.Vocabulary;
+import com.example.recipe.vocabulary.VocabularyDictionary;
 import exceptions.ApiException;
 import exceptions.BadRequestException;
 import exceptions.DatabaseException;
+import exceptions.ForbiddenException;
+import exceptions.UpstreamException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.function.IntSupplier;
 
 /**
  * Logic for recipe calls.
@@ -34,62 +43,97 @@ import java.util.*;
 @Service
 @SuppressWarnings("unused")
 public class RecipeService {
-    Converters converter = new Converters();
+    static final int PAGE_SIZE = 5;
+    static final int SEARCH_PAGE_SIZE = 12;
+    static final int MAX_CALENDAR_DAYS = 366;
 
     @Autowired
     private RecipeRepository recipeRepository;
 
     @Autowired
-    private IngredientRepository ingredientRepository;
+    private RecipeUtils recipeUtils;
 
     @Autowired
-    private UnitRepository unitRepository;
+    private RandomRecipePool randomRecipePool;
 
     @Autowired
-    private CategoryRepository categoryRepository;
+    private Scheduler databaseScheduler;
 
     @Autowired
-    private CountryRepository countryRepository;
+    private VocabularyDictionary vocabularyDictionary;
 
     @Autowired
-    private TypeRepository typeRepository;
+    private RecipeWriter recipeWriter;
 
     @Autowired
-    private RecipeUtils recipeUtils;
+    private AccountStatsService accountStatsService;
+
+    @Autowired
+    private CalendarIndex calendarIndex;
+
+    @Autowired
+    private RecipeReader recipeReader;
+
+    @Autowired
+    private RecipeJsonCache recipeJsonCache;
+
+    @Autowired
+    private RecipeOwners recipeOwners;
+
+    @Value("${recipe.bulk.max-size:100}")
+    private int bulkMaxSize;
 
     /**
      * Adds a recipe to the database.
+     * All references are checked before saving and every missing one is reported in the error.
+     * The recipe row is saved first, then its measurements and instructions with one insert each.
+     * The recipe is counted in the account's stats and put on its calendar.
      * @param recipe
      *        Recipe to be added
      * @return true if successful, error otherwise.
      */
+    @Transactional
     public Boolean add(Recipe recipe) {
+        List<Integer> unitIds = new ArrayList<>();
+        List<Integer> ingredientIds = new ArrayList<>();
         for (Measurement measurement : recipe.getMeasurements()) {
-            unitRepository.findById(measurement.getUnit().getId()).orElseThrow(() ->
-                new BadRequestException("unit not in database"));
-            ingredientRepository.findById(measurement.getIngredient().getId()).orElseThrow(() ->
-                    new BadRequestException("ingredient not in database"));
-            }
-
-        for (Type type : recipe.getType()) {
-            typeRepository.findById(type.getId()).orElseThrow(() ->
-                    new BadRequestException("type not in database"));
-        }
-        for (Country country : recipe.getCountry()) {
-            countryRepository.findById(country.getId()).orElseThrow(() ->
-                    new BadRequestException("country not in database"));
+            unitIds.add(measurement.getUnit().getId());
+            ingredientIds.add(measurement.getIngredient().getId());
         }
-        for (Category category : recipe.getCategory()) {
-            categoryRepository.findById(category.getId()).orElseThrow(() ->
-                    new BadRequestException("category not in database"));
+        List<Integer> typeIds = recipe.getType().stream().map(Type::getId).toList();
+        List<Integer> countryIds = recipe.getCountry().stream().map(Country::getId).toList();
+        List<Integer> categoryIds = recipe.getCategory().stream().map(Category::getId).toList();
+
+        List<String> missing = new ArrayList<>();
+        missing(missing, "unit", vocabularyDictionary.units().missingIds(unitIds));
+        missing(missing, "ingredient", vocabularyDictionary.ingredients().missingIds(ingredientIds));
+        missing(missing, "type", vocabularyDictionary.types().missingIds(typeIds));
+        missing(missing, "country", vocabularyDictionary.countries().missingIds(countryIds));
+        missing(missing, "category", vocabularyDictionary.categories().missingIds(categoryIds));
+        if (!missing.isEmpty()) {
+            throw new BadRequestException(String.join(", ", missing));
         }
 
-        if (recipeRepository.getByDate(recipe.getAccount().getId(), recipe.getToDoDate()).orElse(null) != null) {
+        if (recipe.getToDoDate() != null
+                && recipeRepository.getByDate(recipe.getAccount().getId(), recipe.getToDoDate()).orElse(null) != null) {
             throw new BadRequestException("recipe with date already exists");
         }
 
+        List<Measurement> measurements = recipe.getMeasurements();
+        List<Instruction> instructions = recipe.getInstructions();
         try {
-            recipeRepository.save(recipe);
+            recipe.setMeasurements(new ArrayList<>());
+            recipe.setInstructions(new ArrayList<>());
+            recipeRepository.saveAndFlush(recipe);
+            recipeJsonCache.invalidate(recipe.getId());
+            recipeOwners.invalidate(recipe.getId());
+            recipeWriter.insertMeasurements(recipe.getId(), measurements);
+            recipeWriter.insertInstructions(recipe.getId(), instructions);
+            accountStatsService.recipeAdded(recipe);
+            if (recipe.getToDoDate() != null) {
+                calendarIndex.scheduled(recipe.getAccount().getId(), recipe.getId(), recipe.getToDoDate(),
+                        Boolean.TRUE.equals(recipe.getFinished()));
+            }
         }
         catch (Exception e) {
             throw new DatabaseException("error while saving to database");
@@ -97,85 +141,165 @@ public class RecipeService {
         return true;
     }
 
+    /**
+     * Adds the error for references not in the database.
+     * @param errors
+     *        errors found so far
+     * @param kind
+     *        kind of the references, e.g. unit
+     * @param ids
+     *        ids not in the database
+     */
+    private static void missing(List<String> errors, String kind, Set<Integer> ids) {
+        if (!ids.isEmpty()) errors.add(kind + " not in database " + ids);
+    }
+
     /**
      * Toggles the favourite on the selected recipe
      * @param recipeId
      *        Recipe to be toggled.
+     * @param accountId
+     *        id of the account owning the recipe.
      * @return true if successful, error otherwise.
      */
-    public Boolean toggleFavourite(int recipeId) {
-        Recipe recipe = recipeRepository.findById(recipeId).orElseThrow(() ->
-                new BadRequestException("no recipe with id"));
-        recipe.setFavourite(!recipe.getFavourite());
-
-        try {
-            recipeRepository.save(recipe);
-        }
-        catch (Exception e) {
-            throw new DatabaseException("error while saving to database");
-        }
-        return true;
+    @Transactional
+    public Boolean toggleFavourite(int recipeId, int accountId) {
+        return updated(() -> {
+            int rows = recipeRepository.toggleFavourite(recipeId, accountId);
+            if (rows > 0) accountStatsService.favouriteToggled(recipeId, accountId);
+            return rows;
+        });
     }
 
     /**
      * Toggles the doLater on the selected recipe
      * @param recipeId
      *        Recipe to be toggled.
+     * @param accountId
+     *        id of the account owning the recipe.
      * @return true if successful, error otherwise
      */
-    public Boolean toggleDoLater(int recipeId) {
-        Recipe recipe = recipeRepository.findById(recipeId).orElseThrow(() ->
-                new BadRequestException("no recipe with id"));
-        recipe.setDoLater(!recipe.getDoLater());
-
-        try {
-            recipeRepository.save(recipe);
-        }
-        catch (Exception e) {
-            throw new DatabaseException("error while saving to database");
-        }
-        return true;
+    @Transactional
+    public Boolean toggleDoLater(int recipeId, int accountId) {
+        return updated(() -> {
+            int rows = recipeRepository.toggleDoLater(recipeId, accountId);
+            if (rows > 0) accountStatsService.doLaterToggled(recipeId, accountId);
+            return rows;
+        });
     }
 
     /**
      * Sets date for recipe
      * @param recipeId
      *        Recipe to be toggled.
+     * @param accountId
+     *        id of the account owning the recipe.
      * @param date
      *        date to be set.
      * @return true if successful, error otherwise
      */
-    public Boolean setDate(int recipeId, LocalDate date) {
-        Recipe recipe = recipeRepository.findById(recipeId).orElseThrow(() ->
-                new BadRequestException("no recipe with id"));
-        recipe.setToDoDate(date);
+    @Transactional
+    public Boolean setDate(int recipeId, int accountId, LocalDate date) {
+        return updated(() -> {
+            int rows = recipeRepository.setDate(recipeId, accountId, date);
+            if (rows > 0) calendarIndex.moved(accountId, recipeId, date);
+            return rows;
+        });
+    }
+
+    /**
+     * Marks the selected recipe as finished
+     * An already finished recipe isn't changed or counted again.
+     * @param recipeId
+     *        Recipe to be marked as finished
+     * @param accountId
+     *        id of the account owning the recipe.
+     * @return true if successful, error otherwise.
+     */
+    @Transactional
+    public Boolean finishRecipe(int recipeId, int accountId) {
+        return updated(() -> {
+            if (recipeRepository.finish(recipeId, accountId) > 0) {
+                accountStatsService.flagsChanged(accountId, 1, 0, 0);
+                calendarIndex.finished(accountId, List.of(recipeId), true);
+                return 1;
+            }
+            return recipeRepository.getOwnIds(accountId, List.of(recipeId)).size();
+        });
+    }
 
+    /**
+     * Changes the same state on many recipes of the account at once.
+     * Ownership of all recipes is checked with one query and the owned ones are changed with one update.
+     * @param update
+     *        ids of the recipes, operation and value to be set
+     * @param accountId
+     *        id of the account owning the recipes.
+     * @return outcome for each recipe id.
+     */
+    @Transactional
+    public BulkRes bulkUpdate(BulkUpdate update, int accountId) {
+        if (update.getIds() == null || update.getIds().isEmpty()) throw new BadRequestException("no recipe ids");
+        if (update.getOperation() == null || update.getValue() == null) throw new BadRequestException("no operation or value");
+        Set<Integer> ids = new LinkedHashSet<>(update.getIds());
+        if (ids.size() > bulkMaxSize) throw new BadRequestException("too many recipe ids, max " + bulkMaxSize);
+
+        Set<Integer> own;
         try {
-            recipeRepository.save(recipe);
+            own = new HashSet<>(recipeRepository.getOwnIds(accountId, ids));
+            if (!own.isEmpty()) {
+                boolean value = update.getValue();
+                switch (update.getOperation()) {
+                    case FAVOURITE -> accountStatsService.flagsChanged(accountId, 0,
+                            change(recipeRepository.setFavourite(accountId, own, value), value), 0);
+                    case DO_LATER -> accountStatsService.flagsChanged(accountId, 0, 0,
+                            change(recipeRepository.setDoLater(accountId, own, value), value));
+                    case FINISHED -> {
+                        accountStatsService.flagsChanged(accountId,
+                                change(recipeRepository.setFinished(accountId, own, value), value), 0, 0);
+                        calendarIndex.finished(accountId, own, value);
+                    }
+                }
+            }
         }
         catch (Exception e) {
             throw new DatabaseException("error while saving to database");
         }
-        return true;
+
+        Map<Integer, BulkRes.Outcome> results = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            results.put(id, own.contains(id) ? BulkRes.Outcome.UPDATED : BulkRes.Outcome.FORBIDDEN);
+        }
+        return new BulkRes(results);
     }
 
     /**
-     * Marks the selected recipe as finished
-     * @param recipeId
-     *        Recipe to be marked as finished
-     * @return true if successful, error otherwise.
+     * @param rows
+     *        amount of recipes changed
+     * @param value
+     *        value set on the recipes
+     * @return change of the count of recipes with the flag set.
      */
-    public Boolean finishRecipe(int recipeId) {
-        Recipe recipe = recipeRepository.findById(recipeId).orElseThrow(() ->
-                new BadRequestException("no recipe with id"));
-        recipe.setFinished(true);
+    private static int change(int rows, boolean value) {
+        return value ? rows : -rows;
+    }
 
+    /**
+     * Runs an update scoped to the owner of the recipe.
+     * No updated rows means the account has no recipe with the id.
+     * @param update
+     *        the update, returning the amount of updated rows
+     * @return true if the recipe was updated, error otherwise.
+     */
+    private Boolean updated(IntSupplier update) {
+        int rows;
         try {
-            recipeRepository.save(recipe);
+            rows = update.getAsInt();
         }
         catch (Exception e) {
             throw new DatabaseException("error while saving to database");
         }
+        if (rows == 0) throw new ForbiddenException("no own recipe with id");
         return true;
     }
 
@@ -199,9 +323,9 @@ public class RecipeService {
      *        Ascending or descending
      * @param page
      *        Keeps track of the page showing the results
-     * @return ListRes of recipes
+     * @return ListRes of recipes. Invalid filters are thrown right away.
      */
-    public ListRes getSearch(
+    public Mono<ListRes> getSearch(
             String search,
             List<String> ingredients,
             List<String> cuisine,
@@ -268,44 +392,69 @@ public class RecipeService {
                 throw new BadRequestException("invalid sort direction");
             }
         }
-        int offset = page * 12;
-        List<ShortRecipe> recipes;
-        try {
-            recipes = recipeUtils.searchResults(search, String.join(",", ingredients), String.join(",", cuisine), String.join(",", diet), String.join(",", intolerances), type, sort, sortDirection, offset).getResults();
-        } catch (Exception e) {
-            if (e.getMessage().split(" ")[0].equals("402")) throw new ApiException("API limit reached");
-            else throw new BadRequestException("API error");
-        }
+        int offset = page * SEARCH_PAGE_SIZE;
+        return recipeUtils.searchResults(search, String.join(",", ingredients), String.join(",", cuisine), String.join(",", diet), String.join(",", intolerances), type, sort, sortDirection, offset)
+                .map(response -> new ListRes(response.getResults(), hasNextPage(response, offset)))
+                .onErrorMap(this::apiError);
+    }
 
-        return new ListRes(recipes, !recipes.isEmpty());
+    /**
+     * Checks if a search has a next page from the total amount of results in the response,
+     * so the client doesn't need to ask for a page to find it empty.
+     * Without the total a full page is taken to mean there are more.
+     * @param response
+     *        response of the search
+     * @param offset
+     *        offset of the page
+     * @return true if there are results after the page.
+     */
+    private static boolean hasNextPage(RecipeResponse response, int offset) {
+        int results = response.getResults() == null ? 0 : response.getResults().size();
+        if (response.getTotalResults() != null) return offset + results < response.getTotalResults();
+        return results == SEARCH_PAGE_SIZE;
     }
 
     /**
      * Searches the API with id.
+     * Database work is done on the database scheduler.
      * @param id
      *        id of the recipe wanted
-     * @return Found recipe as RecipeRes
+     * @return Found recipe as RecipeRes, empty if the recipe is already in the database.
      */
-    public RecipeRes getSearchById(int id) {
-        // If recipe already in database.
-        if (recipeRepository.findById(id).orElse(null) != null) return null;
-        RecipeFormat res;
-        try {
-            res = recipeUtils.getRecipeById(id);
-        } catch (Exception e) {
-            if (e.getMessage().split(" ")[0].equals("402")) throw new ApiException("API limit reached");
-            else throw new BadRequestException("API error");
-        }
-        
+    public Mono<RecipeRes> getSearchById(int id) {
+        return Mono.fromCallable(() -> recipeRepository.findById(id).isPresent())
+                .subscribeOn(databaseScheduler)
+                // If recipe already in database.
+                .flatMap(exists -> exists ? Mono.empty() : recipeUtils.getRecipeById(id).onErrorMap(this::apiError))
+                .publishOn(databaseScheduler)
+                .map(this::toRecipeRes);
+    }
+
+    /**
+     * Converts recipe from the API to RecipeRes.
+     * Names are looked up in the vocabulary dictionary, and ingredients, units, types and countries
+     * not in the database yet are added together.
+     * @param res
+     *        recipe from the API
+     * @return recipe as RecipeRes
+     */
+    private RecipeRes toRecipeRes(RecipeFormat res) {
         String summary = res.getSummary().replaceAll("<b>", "").replaceAll("</b>", "").substring(0, Math.min(res.getSummary().length(), 300)) + "...";
-        List<MeasurementRes> measurements = new ArrayList<>();
+        List<String> ingredientNames = new ArrayList<>();
+        List<String> unitNames = new ArrayList<>();
         for (RecipeIngredients ingredient : res.getExtendedIngredients()) {
-            String unit = ingredient.getMeasures().getMetric().getUnitShort();
+            ingredientNames.add(ingredient.getName());
+            unitNames.add(ingredient.getMeasures().getMetric().getUnitShort());
+        }
+        Map<String, com.example.recipe.ingredient.Ingredient> ingredients = vocabularyDictionary.ingredients().resolve(ingredientNames);
+        Map<String, Unit> units = vocabularyDictionary.units().resolve(unitNames);
 
+        List<MeasurementRes> measurements = new ArrayList<>();
+        for (RecipeIngredients ingredient : res.getExtendedIngredients()) {
             MeasurementRes measurement = new MeasurementRes(
-                    ingredientRepository.getIngredientByName(ingredient.getName()).orElseGet(() -> ingredientRepository.save(new com.example.recipe.ingredient.Ingredient(ingredient.getName()))),
+                    ingredients.get(ingredient.getName()),
                     ingredient.getMeasures().getMetric().getAmount(),
-                    unitRepository.getUnitByName(unit).orElseGet(() -> unitRepository.save(new Unit(unit))));
+                    units.get(ingredient.getMeasures().getMetric().getUnitShort()));
             if (!measurements.contains(measurement)) {
                 measurements.add(measurement);
             }
@@ -313,35 +462,39 @@ public class RecipeService {
         String inst = res.getInstructions().replaceAll("<ol>", "").replaceAll("</ol>", "").replaceAll("<li>", "");
         List<String> instList = new ArrayList<>(Arrays.asList(inst.split("</li>")));
 
+        Map<String, Type> typesByName = vocabularyDictionary.types().resolve(res.getDishTypes());
+        Map<String, Country> countriesByName = vocabularyDictionary.countries().resolve(res.getCuisines());
+        Vocabulary<Category> categoryNames = vocabularyDictionary.categories();
+
         List<Type> types = new ArrayList<>();
         List<Country> countries = new ArrayList<>();
         List<Category> categories = new ArrayList<>();
 
         for (String type : res.getDishTypes()) {
-            types.add(typeRepository.getTypeByName(type).orElseGet(() -> typeRepository.save(new Type(type))));
+            types.add(typesByName.get(type));
         }
 
         for (String cuisine : res.getCuisines()) {
-            countries.add(countryRepository.getCountryByName(cuisine).orElseGet(() -> countryRepository.save(new Country(cuisine))));
+            countries.add(countriesByName.get(cuisine));
         }
 
         for (String category : res.getDiets()) {
             if (category.equals("pescatarian"))
-                categories.add(categoryRepository.getCategoryByName("pescatarian").orElse(null));
+                categories.add(categoryNames.get("pescatarian"));
             if (category.equals("nutfree"))
-                categories.add(categoryRepository.getCategoryByName("nutfree").orElse(null));
+                categories.add(categoryNames.get("nutfree"));
         }
         if (res.isDairyFree()) {
-            categories.add(categoryRepository.getCategoryByName("dairyfree").orElse(null));
+            categories.add(categoryNames.get("dairyfree"));
         }
         if (res.isVegan()) {
-            categories.add(categoryRepository.getCategoryByName("vegan").orElse(null));
+            categories.add(categoryNames.get("vegan"));
         }
         if (res.isVegetarian()) {
-            categories.add(categoryRepository.getCategoryByName("vegetarian").orElse(null));
+            categories.add(categoryNames.get("vegetarian"));
         }
         if (res.isGlutenFree()) {
-            categories.add(categoryRepository.getCategoryByName("glutenfree").orElse(null));
+            categories.add(categoryNames.get("glutenfree"));
         }
 
         return new RecipeRes(
@@ -362,18 +515,15 @@ public class RecipeService {
     }
 
     /**
-     * Gets random recipes from the API.
+     * Gets random recipes from the pool of recipes from the API.
+     * @param caller
+     *        key of the caller, so they don't get the same recipes twice in a row
      * @return a ListRes of random recipes
      */
-    public ListRes getRandom() {
-        List<ShortRecipe> recipes;
-        try {
-            recipes = recipeUtils.randomResults().getRecipes();
-        } catch (Exception e) {
-            if (e.getMessage().split(" ")[0].equals("402")) throw new ApiException("API limit reached");
-            else throw new BadRequestException("API error");
-        }
-        return new ListRes(recipes, false);
+    public Mono<ListRes> getRandom(String caller) {
+        return randomRecipePool.take(caller)
+                .map(recipes -> new ListRes(recipes, false))
+                .onErrorMap(this::apiError);
     }
 
     /**
@@ -383,24 +533,12 @@ public class RecipeService {
      * @return The stats in RecipeStats format
      */
     public RecipeStats getStats(int accountId) {
-        RecipeStats res = new RecipeStats();
-        res.setChart(recipeRepository.getStats(accountId));
-
-        res.setDone(recipeRepository.getDoneCount(accountId).orElseThrow(() ->
-                new BadRequestException("error while getting done count from database")));
-
-        res.setFavourite(recipeRepository.getFavouriteCount(accountId).orElseThrow(() ->
-                new BadRequestException("error while getting favourite count from database")));
-
-        res.setDoLater(recipeRepository.getDoLaterCount(accountId).orElseThrow(() ->
-                new BadRequestException("error while getting doLater count from database")));
-
-        return res;
+        return accountStatsService.getStats(accountId);
     }
 
     /**
      * Gets favourite recipes with page from database.
-     * Also checks if there is a next page and converts into a ListRes.
+     * The next page is known from the same query, which fetches one row more than the page.
      * @param accountId
      *        id of account we want favourites for.
      * @param page
@@ -411,16 +549,24 @@ public class RecipeService {
         if (page < 0) {
             throw new BadRequestException("Invalid page");
         }
-        PageRequest pageRequest = PageRequest.of(page, 5);
-        PageRequest nextPageRequest = PageRequest.of(page + 1, 5);
-        return new ListRes(recipeRepository.getFavourite(
-                accountId, pageRequest),
-                !recipeRepository.getFavourite(accountId, nextPageRequest).isEmpty());
+        return listRes(recipeRepository.getFavourite(accountId, PageRequest.of(page, PAGE_SIZE)));
+    }
+
+    /**
+     * Gets the favourite recipes after the cursor from database.
+     * @param accountId
+     *        id of account we want favourites for.
+     * @param cursor
+     *        cursor of the previous page, null for the first page.
+     * @return ListRes with favourite recipes and the cursor of the next page
+     */
+    public ListRes getFavouriteAfter(int accountId, String cursor) {
+        return listRes(recipeRepository.getFavouriteAfter(accountId, RecipeCursor.decode(cursor), PageRequest.of(0, PAGE_SIZE)));
     }
 
     /**
      * Gets doLater recipes with page from database.
-     * Also checks if there is a next page and converts into a ListRes.
+     * The next page is known from the same query, which fetches one row more than the page.
      * @param accountId
      *        id of account we want doLater for.
      * @param page
@@ -431,40 +577,67 @@ public class RecipeService {
         if (page < 0) {
             throw new BadRequestException("Invalid page");
         }
-        PageRequest pageRequest = PageRequest.of(page, 5);
-        PageRequest nextPageRequest = PageRequest.of(page + 1, 5);
-        return new ListRes(
-                recipeRepository.getDoLater(accountId, pageRequest),
-                !recipeRepository.getDoLater(accountId, nextPageRequest).isEmpty());
+        return listRes(recipeRepository.getDoLater(accountId, PageRequest.of(page, PAGE_SIZE)));
     }
 
+    /**
+     * Gets the doLater recipes after the cursor from database.
+     * @param accountId
+     *        id of account we want doLater for.
+     * @param cursor
+     *        cursor of the previous page, null for the first page.
+     * @return ListRes with doLater recipes and the cursor of the next page
+     */
+    public ListRes getDoLaterAfter(int accountId, String cursor) {
+        return listRes(recipeRepository.getDoLaterAfter(accountId, RecipeCursor.decode(cursor), PageRequest.of(0, PAGE_SIZE)));
+    }
 
     /**
-     * Gets recipe from the database with id.
+     * Converts a page of recipes into a ListRes, with the cursor after its last recipe if there is a next page.
+     * @param recipes
+     *        page of recipes
+     * @return ListRes of the page.
+     */
+    private static ListRes listRes(Slice<ListRecipeRes> recipes) {
+        List<ListRecipeRes> content = recipes.getContent();
+        String cursor = recipes.hasNext() ? RecipeCursor.encode(content.get(content.size() - 1).getId()) : null;
+        return new ListRes(content, recipes.hasNext(), cursor);
+    }
+
+    /**
+     * Gets recipe from the database with id as JSON.
+     * Only the states and date are queried when the rest of the recipe is in RecipeJsonCache,
+     * otherwise the recipe is read straight into FullRecipeRes with RecipeReader, without making entities.
      * @param recipeId
      *        id of the recipe we want to search.
-     * @return found recipe.
+     * @return found recipe as JSON.
      */
-    public FullRecipeRes getRecipe(int recipeId) {
-        Recipe recipe = recipeRepository.findById(recipeId).orElseThrow(() ->
+    @Transactional(readOnly = true)
+    public byte[] getRecipe(int recipeId) {
+        RecipeFlags flags = recipeRepository.getFlags(recipeId).orElseThrow(() ->
                 new BadRequestException("no recipe with id"));
-        return converter.fullRecipeConverter(recipe);
+        return recipeJsonCache.get(recipeId, flags, id -> recipeReader.getRecipe(id).orElseThrow(() ->
+                new BadRequestException("no recipe with id")));
     }
 
     /**
      * Deletes the wanted recipe from the database
+     * Only the owner, states and countries of the recipe are read for the stats and calendar,
+     * the rows are then deleted without loading the entity.
      * @param id
      *       The recipe to be deleted
      * @return true if successful
      */
+    @Transactional
     public Boolean delete(int id) {
-        Recipe recipe = recipeRepository.findById(id).orElseThrow(() ->
+        RecipeFlags recipe = recipeRepository.getFlags(id).orElseThrow(() ->
                 new BadRequestException("no recipe with id"));
-        recipe.getCountry().clear();
-        recipe.getType().clear();
-        recipe.getCategory().clear();
         try {
-            recipeRepository.deleteById(id);
+            accountStatsService.recipeRemoved(recipe, recipeRepository.getCountryIds(id));
+            recipeWriter.deleteRecipe(id);
+            calendarIndex.removed(recipe.getAccountId(), id);
+            recipeJsonCache.invalidate(id);
+            recipeOwners.invalidate(id);
         }
         catch (Exception e) {
             throw new DatabaseException("error while deleting from database");
@@ -480,14 +653,14 @@ public class RecipeService {
      *        Wanted date of recipe
      * @return recipe that matches the date. If no recipe return null.
      */
+    @Transactional(readOnly = true)
     public FullRecipeRes getRecipeForDate(int accountId, LocalDate date) {
-        Recipe recipe = recipeRepository.getByDate(accountId, date).orElse(null);
-        if (recipe == null) return null;
-        return converter.fullRecipeConverter(recipe);
+        return recipeReader.getRecipeForDate(accountId, date).orElse(null);
     }
 
     /**
      * Gets weekly calendar for account
+     * The days of the week are read from the calendar index.
      * @param accountId
      *        id of the account
      * @return Map of weekdays and Day objects
@@ -496,20 +669,40 @@ public class RecipeService {
         LocalDate today = LocalDate.now();
         LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
         Map<String, Day> weeklyCalendar = new HashMap<>();
-
-        for (int i = 0; i < 7; i++) {
-            LocalDate currentDate = monday.plusDays(i);
-
-            Recipe recipe = recipeRepository.getByDate(accountId, currentDate).orElse(null);
-            int state = 0;
-            if (recipe != null) state = 1;
-            if (recipe != null && recipe.getFinished()) state = 2;
-
-
-            weeklyCalendar.put(
-                    currentDate.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.getDefault()),
-                    new Day(currentDate, state));
+        for (Day day : calendarIndex.days(accountId, monday, monday.plusDays(6))) {
+            weeklyCalendar.put(day.getDate().getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.getDefault()), day);
         }
         return weeklyCalendar;
     }
+
+    /**
+     * Gets the calendar of the account for any range of days, at most a year
+     * The days are read from the calendar index, so no query is made once the account's calendar is loaded.
+     * @param accountId
+     *        id of the account
+     * @param from
+     *        first day, inclusive
+     * @param to
+     *        last day, inclusive
+     * @return Day for each day of the range.
+     */
+    public List<Day> getCalendarRange(int accountId, LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to) || from.plusDays(MAX_CALENDAR_DAYS).isBefore(to)) {
+            throw new BadRequestException("Invalid range");
+        }
+        return calendarIndex.days(accountId, from, to);
+    }
+
+    /**
+     * Converts an error from the API to the error for the client.
+     * @param e
+     *        error from the API
+     * @return ApiException if the API limit was reached or the API is unavailable, BadRequestException otherwise.
+     */
+    private Throwable apiError(Throwable e) {
+        if (e instanceof ApiException) return e;
+        if (e instanceof UpstreamException upstream && upstream.getKind().isLimit()) return new ApiException("API limit reached");
+        if (e instanceof UpstreamException upstream && upstream.getKind() == UpstreamException.Kind.UNAVAILABLE) return new ApiException("API unavailable");
+        return new BadRequestException("API error");
+    }
 }
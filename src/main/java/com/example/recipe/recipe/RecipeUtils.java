@@ -1,25 +1,74 @@
 package com.example.recipe.recipe;
 
+import com.example.recipe.api.ApiKeyPool;
+import com.example.recipe.api.RecipeStore;
+import com.example.recipe.api.RequestCoalescer;
+import com.example.recipe.api.SearchCache;
+import com.example.recipe.api.SearchKey;
 import com.example.recipe.apiClasses.RecipeFormat;
-import exceptions.ApiException;
+import exceptions.UpstreamException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Utils for recipes
+ * Calls to the API don't block, results are returned as Mono.
  */
 @Service
 public class RecipeUtils {
-    @Value("${apiKey2}")
-    String apiKey;
+    private static final String RANDOM_URI = "/random?apiKey={apiKey}&number={number}";
+    private static final String RECIPE_URI = "/{id}/information?apiKey={apiKey}&includeNutrition=false";
+    private static final String SEARCH_URI = "/complexSearch?apiKey={apiKey}&query={query}&includeIngredients={includeIngredients}&cuisine={cuisine}&diet={diet}&intolerances={intolerances}&type={type}&sort={sort}&sortDirection={sortDirection}&offset={offset}&number=12";
+
+    @Autowired
+    private WebClient recipeApiClient;
+
+    @Autowired
+    private ApiKeyPool apiKeyPool;
+
+    @Autowired
+    private CircuitBreaker recipeApiCircuitBreaker;
+
+    @Autowired
+    private Bulkhead recipeApiBulkhead;
+
+    @Value("${recipe.api.timeout.search:5s}")
+    private Duration searchTimeout;
+
+    @Value("${recipe.api.timeout.id:5s}")
+    private Duration idTimeout;
 
-    @Value("${apiKey}")
-    String apiKey2;
+    @Value("${recipe.api.timeout.random:8s}")
+    private Duration randomTimeout;
 
-    @Value("${requestUrl}")
-    String request_url;
+    @Autowired
+    private SearchCache searchCache;
+
+    @Autowired
+    private RecipeStore recipeStore;
+
+    @Autowired
+    private RequestCoalescer<SearchKey, RecipeResponse> searchCoalescer;
+
+    @Autowired
+    private RequestCoalescer<Integer, RecipeFormat> recipeByIdCoalescer;
 
     /**
      * Gets search results from the API.
@@ -41,75 +90,117 @@ public class RecipeUtils {
      *        Ascending or descending
      * @param offset
      *        The amount of recipes to skip for next call
-     * @return Results from call to API as RecipeResponse
+     * @return Results from call to API as RecipeResponse. Stale results if the API fails and the search was cached before.
      */
-    public RecipeResponse searchResults(String search, String ingredients, String cuisine, String diet, String intolerances, String type, String sort, String sortDirection, int offset) {
-        WebClient webClient = WebClient.create(request_url);
+    public Mono<RecipeResponse> searchResults(String search, String ingredients, String cuisine, String diet, String intolerances, String type, String sort, String sortDirection, int offset) {
+        SearchKey key = SearchKey.of(search, ingredients, cuisine, diet, intolerances, type, sort, sortDirection, offset);
+        RecipeResponse cached = searchCache.get(key);
+        if (cached != null) return Mono.just(cached);
 
-        try {
-            return webClient.get()
-                    .uri("/complexSearch?apiKey="+apiKey+"&query="+search+"&includeIngredients="+ingredients+"&cuisine="+cuisine+"&diet="+diet+"&intolerances="+intolerances+"&type="+type+"&sort="+sort+"&sortDirection="+sortDirection+"&offset="+offset+"&number=12")
-                    .retrieve()
-                    .bodyToMono(RecipeResponse.class)
-                    .block();
-        } catch (WebClientException e) {
-            return webClient.get()
-                    .uri("/complexSearch?apiKey="+apiKey2+"&query="+search+"&includeIngredients="+ingredients+"&cuisine="+cuisine+"&diet="+diet+"&intolerances="+intolerances+"&type="+type+"&sort="+sort+"&sortDirection="+sortDirection+"&offset="+offset+"&number=12")
-                    .retrieve()
-                    .bodyToMono(RecipeResponse.class)
-                    .block();
-        } catch (Exception e) {
-            throw new ApiException("API limit reached");
-        }
+        return searchCoalescer.execute(key, () -> get(SEARCH_URI, key.toUriVariables(), RecipeResponse.class, searchTimeout)
+                .doOnNext(response -> searchCache.put(key, response)))
+                .onErrorResume(UpstreamException.class, e -> {
+                    RecipeResponse stale = e.getKind() == UpstreamException.Kind.CLIENT_ERROR ? null : searchCache.getStale(key);
+                    return stale != null ? Mono.just(stale) : Mono.error(e);
+                });
     }
 
     /**
-     * Gets recipe by id from the API.
+     * Gets recipe by id from the recipe store, or from the API if not stored yet.
+     * New recipes are written to the store off the client threads.
      * @param id
      *        id of the recipe wanted
      * @return Data for recipe as RecipeFormat
      */
-    public RecipeFormat getRecipeById(int id) {
-        WebClient webClient = WebClient.create(request_url);
+    public Mono<RecipeFormat> getRecipeById(int id) {
+        RecipeFormat stored = recipeStore.get(id);
+        if (stored != null) return Mono.just(stored);
 
-        try {
-            return webClient.get()
-                    .uri("/"+id+"/information?apiKey="+apiKey+"&includeNutrition=false")
-                    .retrieve()
-                    .bodyToMono(RecipeFormat.class)
-                    .block();
-        } catch (WebClientException e) {
-            return webClient.get()
-                    .uri("/"+id+"/information?apiKey="+apiKey2+"&includeNutrition=false")
-                    .retrieve()
-                    .bodyToMono(RecipeFormat.class)
-                    .block();
-        } catch (Exception e) {
-            throw new ApiException("API limit reached");
-        }
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("id", id);
+        return recipeByIdCoalescer.execute(id, () -> get(RECIPE_URI, variables, RecipeFormat.class, idTimeout)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(recipe -> recipeStore.put(id, recipe)));
     }
 
     /**
-     * Gets 12 random recipes from the API.
-     * @return 12 random recipes as RandomResponse.
+     * Gets random recipes from the API.
+     * @param number
+     *        amount of recipes wanted, at most 100
+     * @return random recipes as RandomResponse.
      */
-    public RandomResponse randomResults() {
-        WebClient webClient = WebClient.create(request_url);
+    public Mono<RandomResponse> randomResults(int number) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("number", number);
+        return get(RANDOM_URI, variables, RandomResponse.class, randomTimeout);
+    }
 
-        try {
-            return webClient.get()
-                    .uri("/random?apiKey=" + apiKey + "&number=12")
-                    .retrieve()
-                    .bodyToMono(RandomResponse.class)
-                    .block();
-        } catch (WebClientException e) {
-            return webClient.get()
-                    .uri("/random?apiKey=" + apiKey2 + "&number=12")
+    /**
+     * Calls the API with the next key from the key pool.
+     * If the key is exhausted, rate limited or rejected the call is retried with the next key.
+     * Each attempt goes through the bulkhead and the circuit breaker and is cut off after the timeout.
+     * @param uri
+     *        uri template with an apiKey variable
+     * @param variables
+     *        variables for the uri
+     * @param type
+     *        type of the response body
+     * @param timeout
+     *        time allowed for one attempt
+     * @return the response body, or UpstreamException if no key is available or the call fails.
+     */
+    private <T> Mono<T> get(String uri, Map<String, Object> variables, Class<T> type, Duration timeout) {
+        return attempt(uri, variables, type, timeout, 0, null);
+    }
+
+    /**
+     * Calls the API with the next key from the key pool.
+     * @param uri
+     *        uri template with an apiKey variable
+     * @param variables
+     *        variables for the uri
+     * @param type
+     *        type of the response body
+     * @param timeout
+     *        time allowed for the attempt
+     * @param attempt
+     *        number of keys tried before
+     * @param failure
+     *        failure of the previous key, or null on the first attempt
+     * @return the response body.
+     */
+    private <T> Mono<T> attempt(String uri, Map<String, Object> variables, Class<T> type, Duration timeout, int attempt, UpstreamException failure) {
+        return Mono.defer(() -> {
+            ApiKeyPool.Key key = attempt < apiKeyPool.size() ? apiKeyPool.next() : null;
+            if (key == null) {
+                if (failure != null) return Mono.error(failure);
+                return Mono.error(new UpstreamException(UpstreamException.Kind.QUOTA_EXHAUSTED, "no API key available"));
+            }
+
+            Map<String, Object> keyed = new HashMap<>(variables);
+            keyed.put("apiKey", key.getValue());
+            return recipeApiClient.get()
+                    .uri(uri, keyed)
                     .retrieve()
-                    .bodyToMono(RandomResponse.class)
-                    .block();
-        } catch (Exception e) {
-            throw new ApiException("API limit reached");
-        }
+                    .toEntity(type)
+                    .timeout(timeout)
+                    .transformDeferred(CircuitBreakerOperator.of(recipeApiCircuitBreaker))
+                    .transformDeferred(BulkheadOperator.of(recipeApiBulkhead))
+                    .mapNotNull(response -> {
+                        apiKeyPool.success(key, response.getHeaders());
+                        return response.getBody();
+                    })
+                    .onErrorResume(WebClientResponseException.class, e -> {
+                        UpstreamException.Kind kind = UpstreamException.Kind.of(e.getStatusCode().value());
+                        apiKeyPool.failure(key, kind, e.getHeaders());
+                        UpstreamException upstream = new UpstreamException(kind, e.getMessage(), e);
+                        if (!kind.isKeyProblem()) return Mono.error(upstream);
+                        return attempt(uri, variables, type, timeout, attempt + 1, upstream);
+                    })
+                    .onErrorMap(CallNotPermittedException.class, e -> new UpstreamException(UpstreamException.Kind.UNAVAILABLE, "circuit to the API is open", e))
+                    .onErrorMap(BulkheadFullException.class, e -> new UpstreamException(UpstreamException.Kind.UNAVAILABLE, "too many calls to the API", e))
+                    .onErrorMap(TimeoutException.class, e -> new UpstreamException(UpstreamException.Kind.UNAVAILABLE, "API timed out", e))
+                    .onErrorMap(WebClientException.class, e -> new UpstreamException(UpstreamException.Kind.UNAVAILABLE, e.getMessage(), e));
+        });
     }
 }
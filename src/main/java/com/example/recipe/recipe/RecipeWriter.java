@@ -0,0 +1,102 @@
+package com.example.recipe.recipe;
+
+import com.example.recipe.instructions.Instruction;
+import com.example.recipe.measurement.Measurement;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the measurements and instructions of a recipe with multi-row inserts.
+ * Their ids are generated by the database, which keeps Hibernate from batching the inserts,
+ * so a recipe with 30 ingredients would otherwise be 30 round trips for the measurements alone.
+ * Must be called in the transaction saving the recipe, after the recipe row is flushed.
+ * Recipes are also deleted here by id, without loading the entity and its collections first.
+ */
+@Component
+public class RecipeWriter {
+    static final int CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RecipeWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the measurements of a recipe.
+     * @param recipeId
+     *        id of the recipe
+     * @param measurements
+     *        measurements to be inserted
+     */
+    public void insertMeasurements(int recipeId, List<Measurement> measurements) {
+        if (measurements == null) return;
+        for (int from = 0; from < measurements.size(); from += CHUNK_SIZE) {
+            List<Measurement> chunk = measurements.subList(from, Math.min(from + CHUNK_SIZE, measurements.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 4);
+            for (Measurement measurement : chunk) {
+                args.add(measurement.getAmount());
+                args.add(measurement.getIngredient() == null ? null : measurement.getIngredient().getId());
+                args.add(measurement.getUnit() == null ? null : measurement.getUnit().getId());
+                args.add(recipeId);
+            }
+            jdbcTemplate.update(sql("INSERT INTO measurement (measurement_amount, measurement_ingredient, measurement_unit, recipe_id) VALUES ",
+                    "(?, ?, ?, ?)", chunk.size()), args.toArray());
+        }
+    }
+
+    /**
+     * Inserts the instructions of a recipe, keeping their order.
+     * @param recipeId
+     *        id of the recipe
+     * @param instructions
+     *        instructions to be inserted
+     */
+    public void insertInstructions(int recipeId, List<Instruction> instructions) {
+        if (instructions == null) return;
+        for (int from = 0; from < instructions.size(); from += CHUNK_SIZE) {
+            List<Instruction> chunk = instructions.subList(from, Math.min(from + CHUNK_SIZE, instructions.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 2);
+            for (Instruction instruction : chunk) {
+                args.add(instruction.getBody());
+                args.add(recipeId);
+            }
+            jdbcTemplate.update(sql("INSERT INTO instruction (instruction_body, recipe_id) VALUES ",
+                    "(?, ?)", chunk.size()), args.toArray());
+        }
+    }
+
+    /**
+     * Deletes a recipe with its labels, measurements and instructions.
+     * @param recipeId
+     *        id of the recipe
+     * @return true if the recipe was deleted.
+     */
+    public boolean deleteRecipe(int recipeId) {
+        jdbcTemplate.update("DELETE FROM recipe_category_mapping WHERE recipe_category = ?", recipeId);
+        jdbcTemplate.update("DELETE FROM recipe_type_mapping WHERE recipe_type = ?", recipeId);
+        jdbcTemplate.update("DELETE FROM recipe_country_mapping WHERE recipe_country = ?", recipeId);
+        jdbcTemplate.update("DELETE FROM measurement WHERE recipe_id = ?", recipeId);
+        jdbcTemplate.update("DELETE FROM instruction WHERE recipe_id = ?", recipeId);
+        return jdbcTemplate.update("DELETE FROM recipe WHERE recipe_id = ?", recipeId) > 0;
+    }
+
+    /**
+     * Builds a multi-row insert.
+     * @param insert
+     *        start of the statement up to VALUES
+     * @param row
+     *        placeholders of one row
+     * @param rows
+     *        amount of rows
+     * @return the statement.
+     */
+    private static String sql(String insert, String row, int rows) {
+        StringBuilder sql = new StringBuilder(insert);
+        for (int i = 0; i < rows; i++) sql.append(i == 0 ? "" : ", ").append(row);
+        return sql.toString();
+    }
+}
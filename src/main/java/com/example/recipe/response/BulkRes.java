@@ -0,0 +1,30 @@
+package com.example.recipe.response;
+
+import java.util.Map;
+
+/**
+ * Formats the outcome of a bulk change per recipe id.
+ */
+@SuppressWarnings("unused")
+public class BulkRes {
+    private Map<Integer, Outcome> results;
+
+    /**
+     * Outcome for one recipe.
+     */
+    public enum Outcome {
+        UPDATED, FORBIDDEN
+    }
+
+    public BulkRes(Map<Integer, Outcome> results) {
+        this.results = results;
+    }
+
+    public Map<Integer, Outcome> getResults() {
+        return results;
+    }
+
+    public void setResults(Map<Integer, Outcome> results) {
+        this.results = results;
+    }
+}
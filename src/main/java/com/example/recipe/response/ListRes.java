@@ -4,17 +4,25 @@ import java.util.List;
 
 /**
  * Class to return list of recipes with data of a new page.
+ * Lists from the database also have a cursor to get the next page with, null on the last page.
  */
 @SuppressWarnings("unused")
 public class ListRes {
     private List<?> recipes;
     private Boolean nextPage;
+    private String cursor;
 
     public ListRes(List<?> recipes, Boolean nextPage) {
         this.recipes = recipes;
         this.nextPage = nextPage;
     }
 
+    public ListRes(List<?> recipes, Boolean nextPage, String cursor) {
+        this.recipes = recipes;
+        this.nextPage = nextPage;
+        this.cursor = cursor;
+    }
+
     public List<?> getRecipes() {
         return recipes;
     }
@@ -30,4 +38,12 @@ public class ListRes {
     public void setNextPage(Boolean nextPage) {
         this.nextPage = nextPage;
     }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
 }
@@ -0,0 +1,59 @@
+package com.example.recipe.security;
+
+import com.example.recipe.account.AccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Check that the account of a token still exists, so a deleted account can't keep using its token until it expires.
+ * The answer is kept for the ttl, so an account is queried at most once per ttl instead of on every request.
+ * The check can be turned off with security.jwt.account-check.enabled, then tokens are trusted until they expire.
+ * Hits, misses and evictions are published under the cache name security.accounts.
+ */
+@Component
+public class ActiveAccounts {
+    private final AccountRepository accountRepository;
+    private final boolean enabled;
+    private final Cache<Integer, Boolean> cache;
+
+    public ActiveAccounts(AccountRepository accountRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${security.jwt.account-check.enabled:true}") boolean enabled,
+                          @Value("${security.jwt.account-check.ttl:1m}") Duration ttl,
+                          @Value("${security.jwt.account-check.max-accounts:10000}") long maxAccounts) {
+        this.accountRepository = accountRepository;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxAccounts)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "security.accounts");
+    }
+
+    /**
+     * Checks if the account still exists.
+     * @param accountId
+     *        id of the account
+     * @return true if the account exists or the check is off, false otherwise.
+     */
+    public boolean isActive(int accountId) {
+        if (!enabled) return true;
+        return cache.get(accountId, accountRepository::existsById);
+    }
+
+    /**
+     * Drops the kept answer for the account, used when it is deleted.
+     * @param accountId
+     *        id of the account
+     */
+    public void evict(int accountId) {
+        cache.invalidate(accountId);
+    }
+}
@@ -2,7 +2,7 @@ package com.example.recipe.security;
 
 import com.example.recipe.account.Account;
 import com.example.recipe.recipe.Recipe;
-import com.example.recipe.recipe.RecipeRepository;
+import com.example.recipe.recipe.RecipeOwners;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
@@ -14,10 +14,11 @@ import org.springframework.stereotype.Component;
 public class Authorization {
 
     @Autowired
-    RecipeRepository recipeRepository;
+    RecipeOwners recipeOwners;
 
     /**
      * Checks if a recipe is the users own recipe.
+     * Only the owner of the recipe is looked up, the recipe itself is left for the service to read.
      * @param authentication
      *        Authenticated accounts authentication.
      * @param id
@@ -26,9 +27,8 @@ public class Authorization {
      */
     public boolean isOwnRecipe(Authentication authentication, int id) {
         Account account = (Account) authentication.getPrincipal();
-        Recipe recipe = recipeRepository.findById(id).orElse(null);
-        if (recipe == null) return false;
-        return account.getId() == recipe.getAccount().getId();
+        Integer owner = recipeOwners.owner(id);
+        return owner != null && owner == account.getId();
     }
 
     /**
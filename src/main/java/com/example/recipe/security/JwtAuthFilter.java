@@ -1,5 +1,6 @@
 package com.example.recipe.security;
 
+import com.example.recipe.account.Account;
 import jakarta.annotation.Nonnull;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -19,16 +20,20 @@ import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 
 /**
  * Custom authorization check for doFilterInternal
+ * Tokens with the account id claim are trusted without loading the account,
+ * older tokens without it still load the account by username.
  */
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final ActiveAccounts activeAccounts;
 
-    public JwtAuthFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthFilter(JwtService jwtService, UserDetailsService userDetailsService, ActiveAccounts activeAccounts) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.activeAccounts = activeAccounts;
     }
 
     /**
@@ -57,20 +62,33 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         jwtToken = authHeader.substring(7); // remove the "Bearer " from the header
 
+        UsernamePasswordAuthenticationToken token;
         try {
-            username = jwtService.getUsername(jwtToken); // username from token
+            token = jwtService.getAuthentication(jwtToken); // account from the claims
+            username = token == null ? jwtService.getUsername(jwtToken) : null; // username from token
         } catch (Exception e) {
             response.sendError(401, e.getMessage());
             return;
         }
 
+        // token has the account id, the account is only checked to still exist
+        if (token != null) {
+            if (SecurityContextHolder.getContext().getAuthentication() == null
+                    && activeAccounts.isActive(((Account) token.getPrincipal()).getId())) {
+                token.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(token);
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         // if no username or user isn't logged in yet
         if (username == null || SecurityContextHolder.getContext().getAuthentication() == null) {
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
             // if token has correct username and isn't expired
             if (Boolean.TRUE.equals(jwtService.checkToken(jwtToken, userDetails))) {
                 // creates token and sets details and authentication to context.
-                UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                token = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 token.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(token);
             }
@@ -1,17 +1,22 @@
 package com.example.recipe.security;
 
+import com.example.recipe.account.Account;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -20,6 +25,8 @@ import java.util.function.Function;
  */
 @Component
 public class JwtService {
+    private static final String ID = "id";
+    private static final String AUTHORITIES = "authorities";
 
     // gets secret key from application.properties
     private final String SECRET_KEY;
@@ -105,13 +112,38 @@ public class JwtService {
     }
 
     /**
-     * generates token with no claims.
+     * generates token with the account id and authorities as claims,
+     * so the account doesn't need to be loaded when the token is used.
      * @param userDetails
      *        Accounts userDetails
      * @return token
      */
     public String newToken(UserDetails userDetails) {
-        return newToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof Account account) {
+            claims.put(ID, account.getId());
+        }
+        claims.put(AUTHORITIES, userDetails.getAuthorities() == null ? List.of()
+                : userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        return newToken(claims, userDetails);
+    }
+
+    /**
+     * Makes the authentication from the claims of the token, without loading the account.
+     * The principal is an Account with only the id and username set.
+     * @param token
+     *        Token to be used, expired or wrongly signed tokens throw
+     * @return authentication, null if the token has no id claim, as with tokens made before the claim was added.
+     */
+    public UsernamePasswordAuthenticationToken getAuthentication(String token) {
+        Claims claims = getAllClaims(token);
+        Integer id = claims.get(ID, Integer.class);
+        if (id == null) return null;
+        List<?> names = claims.get(AUTHORITIES, List.class);
+        List<GrantedAuthority> authorities = names == null ? List.of()
+                : names.stream().<GrantedAuthority>map(name -> new SimpleGrantedAuthority(name.toString())).toList();
+        Account account = new Account(id, claims.getSubject(), null, null, null);
+        return new UsernamePasswordAuthenticationToken(account, null, authorities);
     }
 
     /**
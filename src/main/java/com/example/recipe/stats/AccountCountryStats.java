@@ -0,0 +1,67 @@
+package com.example.recipe.stats;
+
+import jakarta.persistence.*;
+
+/**
+ * Creates the account country stats entity for the database.
+ * Holds the count of recipes from one country for an account, kept up to date by the recipe writes.
+ */
+@SuppressWarnings("unused")
+@Entity
+@Table(name="account_country_stats", uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "country_id"}))
+public class AccountCountryStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "stats_id", nullable = false, updatable = false, unique = true)
+    private int id;
+
+    @Column(name = "account_id", nullable = false)
+    private int accountId;
+
+    @Column(name = "country_id", nullable = false)
+    private int countryId;
+
+    @Column(name = "stats_count", nullable = false)
+    private int count;
+
+    public AccountCountryStats(int accountId, int countryId, int count) {
+        this.accountId = accountId;
+        this.countryId = countryId;
+        this.count = count;
+    }
+
+    public AccountCountryStats() {
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(int accountId) {
+        this.accountId = accountId;
+    }
+
+    public int getCountryId() {
+        return countryId;
+    }
+
+    public void setCountryId(int countryId) {
+        this.countryId = countryId;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.recipe.stats;
+
+import jakarta.persistence.*;
+
+/**
+ * Creates the account stats entity for the database.
+ * Holds the done, favourite and doLater counters of an account, kept up to date by the recipe writes.
+ */
+@SuppressWarnings("unused")
+@Entity
+@Table(name="account_stats")
+public class AccountStats {
+    @Id
+    @Column(name = "account_id", nullable = false, updatable = false, unique = true)
+    private int accountId;
+
+    @Column(name = "stats_done", nullable = false)
+    private int done;
+
+    @Column(name = "stats_favourite", nullable = false)
+    private int favourite;
+
+    @Column(name = "stats_do_later", nullable = false)
+    private int doLater;
+
+    public AccountStats(int accountId, int done, int favourite, int doLater) {
+        this.accountId = accountId;
+        this.done = done;
+        this.favourite = favourite;
+        this.doLater = doLater;
+    }
+
+    public AccountStats() {
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(int accountId) {
+        this.accountId = accountId;
+    }
+
+    public int getDone() {
+        return done;
+    }
+
+    public void setDone(int done) {
+        this.done = done;
+    }
+
+    public int getFavourite() {
+        return favourite;
+    }
+
+    public void setFavourite(int favourite) {
+        this.favourite = favourite;
+    }
+
+    public int getDoLater() {
+        return doLater;
+    }
+
+    public void setDoLater(int doLater) {
+        this.doLater = doLater;
+    }
+}
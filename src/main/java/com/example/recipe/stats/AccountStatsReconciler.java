@@ -0,0 +1,54 @@
+package com.example.recipe.stats;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks the stored statistics of every account against its recipes, once a night by default.
+ * Drifted accounts are fixed and counted in recipe.stats.drift, a non zero count means some write doesn't keep them up to date.
+ * The schedule is set with recipe.stats.reconcile-cron.
+ */
+@Component
+public class AccountStatsReconciler {
+    private static final Logger log = LoggerFactory.getLogger(AccountStatsReconciler.class);
+
+    private final AccountStatsService accountStatsService;
+    private final AccountStatsRepository accountStatsRepository;
+    private final Counter drift;
+
+    public AccountStatsReconciler(AccountStatsService accountStatsService,
+                                  AccountStatsRepository accountStatsRepository,
+                                  MeterRegistry meterRegistry) {
+        this.accountStatsService = accountStatsService;
+        this.accountStatsRepository = accountStatsRepository;
+        this.drift = Counter.builder("recipe.stats.drift")
+                .description("Accounts whose stored statistics differed from their recipes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rebuilds the statistics of every account, each in its own transaction.
+     * @return amount of accounts whose statistics had drifted.
+     */
+    @Scheduled(cron = "${recipe.stats.reconcile-cron:0 30 3 * * *}")
+    public int reconcile() {
+        int accounts = 0;
+        int drifted = 0;
+        for (int accountId : accountStatsRepository.getAccountIds()) {
+            accounts++;
+            try {
+                if (accountStatsService.rebuild(accountId)) drifted++;
+            }
+            catch (Exception e) {
+                log.warn("Failed to reconcile stats of account {}", accountId, e);
+            }
+        }
+        drift.increment(drifted);
+        log.info("Reconciled stats of {} accounts, {} had drifted", accounts, drifted);
+        return drifted;
+    }
+}
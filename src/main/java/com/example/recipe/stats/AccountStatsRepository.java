@@ -0,0 +1,183 @@
+package com.example.recipe.stats;
+
+import com.example.recipe.recipe.RecipeCounts;
+import com.example.recipe.response.StatRes;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for the account stats and account country stats.
+ * The counters are only updated when the account has a stats row, an account without one is rebuilt on read.
+ */
+@Repository
+public interface AccountStatsRepository extends JpaRepository<AccountStats, Integer> {
+
+    /**
+     * Query to get the stored counters of an account
+     * @param accountId
+     *        id for account
+     * @return RecipeCounts of the account, empty if they haven't been built yet.
+     */
+    @Query(value = "SELECT s.stats_done AS done, s.stats_favourite AS favourite, s.stats_do_later AS doLater FROM account_stats s WHERE s.account_id = ?1", nativeQuery = true)
+    Optional<RecipeCounts> getCounts(int accountId);
+
+    /**
+     * Query to get the stored counters of an account and lock them until the end of the transaction
+     * @param accountId
+     *        id for account
+     * @return RecipeCounts of the account, empty if they haven't been built yet.
+     */
+    @Query(value = "SELECT s.stats_done AS done, s.stats_favourite AS favourite, s.stats_do_later AS doLater FROM account_stats s WHERE s.account_id = ?1 FOR UPDATE", nativeQuery = true)
+    Optional<RecipeCounts> lockCounts(int accountId);
+
+    /**
+     * Creates empty counters for an account unless it has some, and locks them until the end of the transaction
+     * @param accountId
+     *        id for account
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO account_stats (account_id, stats_done, stats_favourite, stats_do_later) VALUES (?1, 0, 0, 0) ON DUPLICATE KEY UPDATE stats_done = stats_done", nativeQuery = true)
+    void createCounts(int accountId);
+
+    /**
+     * Query to get the stored country counts of an account
+     * @param accountId
+     *        id for account
+     * @return List of StatRes with the count of recipes and name of country.
+     */
+    @Query(value = "SELECT s.stats_count AS count, c.country_name AS name FROM account_country_stats s JOIN country c ON c.country_id = s.country_id WHERE s.account_id = ?1 AND s.stats_count > 0 ORDER BY c.country_name", nativeQuery = true)
+    List<StatRes> getCountries(int accountId);
+
+    /**
+     * Adds to the counters of an account
+     * @param accountId
+     *        id for account
+     * @param done
+     *        change of the done count
+     * @param favourite
+     *        change of the favourite count
+     * @param doLater
+     *        change of the doLater count
+     * @return amount of accounts changed, 0 if the counters haven't been built yet.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE account_stats SET stats_done = stats_done + ?2, stats_favourite = stats_favourite + ?3, stats_do_later = stats_do_later + ?4 WHERE account_id = ?1", nativeQuery = true)
+    int addCounts(int accountId, int done, int favourite, int doLater);
+
+    /**
+     * Counts a toggled favourite, up if the recipe is now a favourite and down otherwise.
+     * Must be run after the toggle in the same transaction.
+     * @param accountId
+     *        id for account
+     * @param recipeId
+     *        id of the toggled recipe
+     * @return amount of accounts changed, 0 if the counters haven't been built yet.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE account_stats SET stats_favourite = stats_favourite + (SELECT CASE WHEN r.recipe_favourite = 1 THEN 1 ELSE -1 END FROM recipe r WHERE r.recipe_id = ?2) WHERE account_id = ?1", nativeQuery = true)
+    int favouriteToggled(int accountId, int recipeId);
+
+    /**
+     * Counts a toggled doLater, up if the recipe is now to be done later and down otherwise.
+     * Must be run after the toggle in the same transaction.
+     * @param accountId
+     *        id for account
+     * @param recipeId
+     *        id of the toggled recipe
+     * @return amount of accounts changed, 0 if the counters haven't been built yet.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE account_stats SET stats_do_later = stats_do_later + (SELECT CASE WHEN r.recipe_do_later = 1 THEN 1 ELSE -1 END FROM recipe r WHERE r.recipe_id = ?2) WHERE account_id = ?1", nativeQuery = true)
+    int doLaterToggled(int accountId, int recipeId);
+
+    /**
+     * Adds to the count of a country for an account, creating the row for a new country
+     * @param accountId
+     *        id for account
+     * @param countryId
+     *        id of the country
+     * @param count
+     *        change of the count
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO account_country_stats (account_id, country_id, stats_count) VALUES (?1, ?2, ?3) ON DUPLICATE KEY UPDATE stats_count = stats_count + ?3", nativeQuery = true)
+    void addCountry(int accountId, int countryId, int count);
+
+    /**
+     * Removes one recipe from the counts of countries for an account
+     * @param accountId
+     *        id for account
+     * @param countryIds
+     *        ids of the countries of the removed recipe
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE account_country_stats SET stats_count = stats_count - 1 WHERE account_id = ?1 AND country_id IN (?2)", nativeQuery = true)
+    void removeCountries(int accountId, Collection<Integer> countryIds);
+
+    /**
+     * Stores the counters of an account, replacing the old ones
+     * @param accountId
+     *        id for account
+     * @param done
+     *        done count
+     * @param favourite
+     *        favourite count
+     * @param doLater
+     *        doLater count
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO account_stats (account_id, stats_done, stats_favourite, stats_do_later) VALUES (?1, ?2, ?3, ?4) ON DUPLICATE KEY UPDATE stats_done = ?2, stats_favourite = ?3, stats_do_later = ?4", nativeQuery = true)
+    void putCounts(int accountId, int done, int favourite, int doLater);
+
+    /**
+     * Counts the countries of an account again from its recipes.
+     * The old counts have to be deleted first.
+     * @param accountId
+     *        id for account
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO account_country_stats (account_id, country_id, stats_count) SELECT r.recipe_account, m.country_id, COUNT(*) FROM recipe_country_mapping m JOIN recipe r ON r.recipe_id = m.recipe_country WHERE r.recipe_account = ?1 GROUP BY r.recipe_account, m.country_id", nativeQuery = true)
+    void countCountries(int accountId);
+
+    /**
+     * Deletes the country counts of an account
+     * @param accountId
+     *        id for account
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM account_country_stats WHERE account_id = ?1", nativeQuery = true)
+    void deleteCountries(int accountId);
+
+    /**
+     * Deletes the counters of an account
+     * @param accountId
+     *        id for account
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM account_stats WHERE account_id = ?1", nativeQuery = true)
+    void deleteCounts(int accountId);
+
+    /**
+     * Query to get the ids of all accounts
+     * @return ids of the accounts.
+     */
+    @Query(value = "SELECT a.account_id FROM account a ORDER BY a.account_id", nativeQuery = true)
+    List<Integer> getAccountIds();
+}
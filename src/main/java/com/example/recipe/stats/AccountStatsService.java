@@ -0,0 +1,189 @@
+package com.example.recipe.stats;
+
+import com.example.recipe.country.Country;
+import com.example.recipe.recipe.Recipe;
+import com.example.recipe.recipe.RecipeCounts;
+import com.example.recipe.recipe.RecipeFlags;
+import com.example.recipe.recipe.RecipeRepository;
+import com.example.recipe.recipe.RecipeStats;
+import com.example.recipe.response.StatRes;
+import exceptions.DatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logic for the per account recipe statistics.
+ * The counters are stored per account and changed by every recipe write in the same transaction,
+ * so reading them doesn't depend on how many recipes the account has.
+ * Counters of an account are built from the recipes on the first read and checked again by AccountStatsReconciler.
+ * Writes are not counted while an account has no counters yet, so a recipe written during the first build
+ * and committed after the build counted the recipes stays uncounted until the next AccountStatsReconciler run.
+ */
+@Service
+public class AccountStatsService {
+    private static final Logger log = LoggerFactory.getLogger(AccountStatsService.class);
+
+    @Autowired
+    private AccountStatsRepository accountStatsRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    /**
+     * Gets the statistics of recipes for the account, building them first if the account has none yet.
+     * @param accountId
+     *        id of the account we want stats for.
+     * @return The stats in RecipeStats format
+     */
+    @Transactional
+    public RecipeStats getStats(int accountId) {
+        RecipeCounts counts = accountStatsRepository.getCounts(accountId).orElse(null);
+        if (counts == null) {
+            rebuild(accountId);
+            counts = accountStatsRepository.getCounts(accountId).orElseThrow(() ->
+                    new DatabaseException("error while getting stats from database"));
+        }
+        return new RecipeStats(accountStatsRepository.getCountries(accountId),
+                counts.getDone(), counts.getFavourite(), counts.getDoLater());
+    }
+
+    /**
+     * Counts a new recipe.
+     * @param recipe
+     *        the added recipe
+     */
+    public void recipeAdded(Recipe recipe) {
+        int accountId = recipe.getAccount().getId();
+        if (accountStatsRepository.addCounts(accountId, count(recipe.getFinished()),
+                count(recipe.getFavourite()), count(recipe.getDoLater())) == 0) return;
+        if (recipe.getCountry() == null) return;
+        for (Country country : recipe.getCountry()) {
+            accountStatsRepository.addCountry(accountId, country.getId(), 1);
+        }
+    }
+
+    /**
+     * Removes a recipe from the counts. Must be called before its countries are deleted.
+     * @param recipe
+     *        owner and states of the recipe to be deleted
+     * @param countryIds
+     *        ids of the countries of the recipe
+     */
+    public void recipeRemoved(RecipeFlags recipe, List<Integer> countryIds) {
+        int accountId = recipe.getAccountId();
+        if (accountStatsRepository.addCounts(accountId, -count(recipe.getFinished()),
+                -count(recipe.getFavourite()), -count(recipe.getDoLater())) == 0) return;
+        if (countryIds.isEmpty()) return;
+        accountStatsRepository.removeCountries(accountId, countryIds);
+    }
+
+    /**
+     * Counts a toggled favourite. Must be called after the toggle.
+     * @param recipeId
+     *        id of the toggled recipe
+     * @param accountId
+     *        id of the account owning the recipe
+     */
+    public void favouriteToggled(int recipeId, int accountId) {
+        accountStatsRepository.favouriteToggled(accountId, recipeId);
+    }
+
+    /**
+     * Counts a toggled doLater. Must be called after the toggle.
+     * @param recipeId
+     *        id of the toggled recipe
+     * @param accountId
+     *        id of the account owning the recipe
+     */
+    public void doLaterToggled(int recipeId, int accountId) {
+        accountStatsRepository.doLaterToggled(accountId, recipeId);
+    }
+
+    /**
+     * Adds the changes of flags set on recipes of the account.
+     * @param accountId
+     *        id of the account owning the recipes
+     * @param done
+     *        change of the done count
+     * @param favourite
+     *        change of the favourite count
+     * @param doLater
+     *        change of the doLater count
+     */
+    public void flagsChanged(int accountId, int done, int favourite, int doLater) {
+        accountStatsRepository.addCounts(accountId, done, favourite, doLater);
+    }
+
+    /**
+     * Deletes the statistics of a deleted account.
+     * @param accountId
+     *        id of the account
+     */
+    public void accountDeleted(int accountId) {
+        accountStatsRepository.deleteCounts(accountId);
+        accountStatsRepository.deleteCountries(accountId);
+    }
+
+    /**
+     * Counts the statistics of the account from its recipes and stores them if they differ from the stored ones.
+     * The counters row is created and locked first, so builds of the same account, from the first read
+     * or from AccountStatsReconciler, run one after the other instead of inserting the same country rows.
+     * @param accountId
+     *        id of the account
+     * @return true if stored statistics had drifted from the recipes, false if they matched or didn't exist.
+     */
+    @Transactional
+    public boolean rebuild(int accountId) {
+        boolean built = accountStatsRepository.getCounts(accountId).isPresent();
+        accountStatsRepository.createCounts(accountId);
+        RecipeCounts stored = accountStatsRepository.lockCounts(accountId).orElseThrow(() ->
+                new DatabaseException("error while getting stats from database"));
+        RecipeCounts counted = recipeRepository.getCounts(accountId);
+        Map<String, Integer> countedCountries = countries(recipeRepository.getStats(accountId));
+
+        if (stored.getDone() == counted.getDone()
+                && stored.getFavourite() == counted.getFavourite()
+                && stored.getDoLater() == counted.getDoLater()
+                && countries(accountStatsRepository.getCountries(accountId)).equals(countedCountries)) {
+            return false;
+        }
+        if (built) {
+            log.warn("Stats of account {} had drifted, stored done {} favourite {} doLater {}, counted done {} favourite {} doLater {}",
+                    accountId, stored.getDone(), stored.getFavourite(), stored.getDoLater(),
+                    counted.getDone(), counted.getFavourite(), counted.getDoLater());
+        }
+
+        accountStatsRepository.putCounts(accountId, counted.getDone(), counted.getFavourite(), counted.getDoLater());
+        accountStatsRepository.deleteCountries(accountId);
+        accountStatsRepository.countCountries(accountId);
+        return built;
+    }
+
+    /**
+     * Converts country stats into a map of country name to count.
+     * @param stats
+     *        country stats
+     * @return counts by country name.
+     */
+    private static Map<String, Integer> countries(List<StatRes> stats) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (StatRes stat : stats) counts.put(stat.getName(), stat.getCount());
+        return counts;
+    }
+
+    /**
+     * @param flag
+     *        flag of a recipe
+     * @return 1 if the flag is set, 0 otherwise.
+     */
+    private static int count(Boolean flag) {
+        return Boolean.TRUE.equals(flag) ? 1 : 0;
+    }
+}
@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -21,4 +23,13 @@ public interface TypeRepository extends PagingAndSortingRepository<Type, Integer
      */
     @Query(value = "SELECT * FROM type t WHERE t.type_name = ?1", nativeQuery = true)
     Optional<Type> getTypeByName(String name);
-}
\ No newline at end of file
+
+    /**
+     * Query to get the types by names
+     * @param names
+     *        names of the types wanted
+     * @return types with the names
+     */
+    @Query(value = "SELECT * FROM type t WHERE t.type_name IN (?1)", nativeQuery = true)
+    List<Type> getTypesByNames(Collection<String> names);
+}
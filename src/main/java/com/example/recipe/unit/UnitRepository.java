@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -21,4 +23,13 @@ public interface UnitRepository extends PagingAndSortingRepository<Unit, Integer
      */
     @Query(value = "SELECT * FROM unit u WHERE u.unit_name = ?1", nativeQuery = true)
     Optional<Unit> getUnitByName(String name);
+
+    /**
+     * Query to get the units by names
+     * @param names
+     *        names of the units wanted
+     * @return units with the names
+     */
+    @Query(value = "SELECT * FROM unit u WHERE u.unit_name IN (?1)", nativeQuery = true)
+    List<Unit> getUnitsByNames(Collection<String> names);
 }
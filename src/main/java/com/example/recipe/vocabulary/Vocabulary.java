@@ -0,0 +1,161 @@
+package com.example.recipe.vocabulary;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In memory dictionary of one vocabulary table, e.g. ingredients, by name and id.
+ * Names are matched trimmed and case insensitive, like the unique names in the database.
+ * The empty name is kept like any other, null names are never resolved.
+ * New names are upserted together and added to the dictionary, so it stays consistent with the table.
+ * @param <T> entity of the vocabulary
+ */
+public class Vocabulary<T> {
+    private static final Logger log = LoggerFactory.getLogger(Vocabulary.class);
+
+    private final String name;
+    private final JpaRepository<T, Integer> repository;
+    private final Function<Collection<String>, List<T>> upsert;
+    private final Function<T, String> nameOf;
+    private final Function<T, Integer> idOf;
+    private final Map<String, T> byName = new ConcurrentHashMap<>();
+    private final Map<Integer, T> byId = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * @param name
+     *        name of the vocabulary for logs and metrics
+     * @param repository
+     *        repository of the entity
+     * @param upsert
+     *        query inserting the names that don't exist and getting the entities, or null if new names aren't added
+     * @param nameOf
+     *        getter for the name of an entity
+     * @param idOf
+     *        getter for the id of an entity
+     */
+    public Vocabulary(String name,
+                      JpaRepository<T, Integer> repository,
+                      Function<Collection<String>, List<T>> upsert,
+                      Function<T, String> nameOf,
+                      Function<T, Integer> idOf) {
+        this.name = name;
+        this.repository = repository;
+        this.upsert = upsert;
+        this.nameOf = nameOf;
+        this.idOf = idOf;
+    }
+
+    /**
+     * Loads the whole table into the dictionary.
+     */
+    public synchronized void load() {
+        for (T entity : repository.findAll()) add(entity);
+        loaded = true;
+        log.info("Loaded {} {} names", byName.size(), name);
+    }
+
+    /**
+     * Gets the entity by name without adding it.
+     * @param name
+     *        name of the entity
+     * @return the entity, or null if there is none with the name.
+     */
+    public T get(String name) {
+        ensureLoaded();
+        return name == null ? null : byName.get(key(name));
+    }
+
+    /**
+     * Gets the entities by names, inserting the names that don't exist yet in one statement.
+     * @param names
+     *        names of the entities
+     * @return map of the given names to their entities, null names map to null.
+     */
+    public Map<String, T> resolve(Collection<String> names) {
+        ensureLoaded();
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (String name : names) {
+            if (name != null && !byName.containsKey(key(name))) {
+                missing.putIfAbsent(key(name), VocabularyInserter.normalize(name));
+            }
+        }
+        if (!missing.isEmpty() && upsert != null) upsert.apply(missing.values()).forEach(this::add);
+
+        Map<String, T> resolved = new HashMap<>();
+        for (String name : names) resolved.put(name, name == null ? null : byName.get(key(name)));
+        return resolved;
+    }
+
+    /**
+     * Finds the ids that don't exist in the table.
+     * Ids not in the dictionary are looked up together in one query.
+     * @param ids
+     *        ids of the entities
+     * @return the ids that don't exist, in the given order.
+     */
+    public Set<Integer> missingIds(Collection<Integer> ids) {
+        ensureLoaded();
+        Set<Integer> missing = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (!byId.containsKey(id)) missing.add(id);
+        }
+        if (missing.isEmpty()) return missing;
+
+        for (T entity : repository.findAllById(List.copyOf(missing))) {
+            add(entity);
+            missing.remove(idOf.apply(entity));
+        }
+        return missing;
+    }
+
+    /**
+     * @return amount of names in the dictionary.
+     */
+    public int size() {
+        return byName.size();
+    }
+
+    /**
+     * Adds an entity to the dictionary.
+     * @param entity
+     *        entity to be added
+     */
+    private void add(T entity) {
+        String name = nameOf.apply(entity);
+        if (name != null) byName.putIfAbsent(key(name), entity);
+        byId.putIfAbsent(idOf.apply(entity), entity);
+    }
+
+    /**
+     * Loads the dictionary if it wasn't loaded yet.
+     */
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) load();
+            }
+        }
+    }
+
+    /**
+     * @param name
+     *        name of an entity
+     * @return key of the name in the dictionary.
+     */
+    private static String key(String name) {
+        return VocabularyInserter.normalize(name).toLowerCase(Locale.ROOT);
+    }
+}
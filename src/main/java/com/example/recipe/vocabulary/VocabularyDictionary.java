@@ -0,0 +1,126 @@
+package com.example.recipe.vocabulary;
+
+import com.example.recipe.category.Category;
+import com.example.recipe.category.CategoryRepository;
+import com.example.recipe.country.Country;
+import com.example.recipe.country.CountryRepository;
+import com.example.recipe.ingredient.Ingredient;
+import com.example.recipe.ingredient.IngredientRepository;
+import com.example.recipe.type.Type;
+import com.example.recipe.type.TypeRepository;
+import com.example.recipe.unit.Unit;
+import com.example.recipe.unit.UnitRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Dictionaries of the ingredient, unit, type, country and category names, loaded at startup.
+ * Converting a recipe from the API looks its names up here instead of querying them one by one,
+ * and adding a recipe checks its references here.
+ * Categories are fixed, so new category names aren't added.
+ * The sizes are published as recipe.vocabulary.size.
+ */
+@Component
+public class VocabularyDictionary {
+    private final Vocabulary<Ingredient> ingredients;
+    private final Vocabulary<Unit> units;
+    private final Vocabulary<Type> types;
+    private final Vocabulary<Country> countries;
+    private final Vocabulary<Category> categories;
+
+    public VocabularyDictionary(IngredientRepository ingredientRepository,
+                                UnitRepository unitRepository,
+                                TypeRepository typeRepository,
+                                CountryRepository countryRepository,
+                                CategoryRepository categoryRepository,
+                                JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry) {
+        this.ingredients = new Vocabulary<>("ingredient", ingredientRepository,
+                upsert(jdbcTemplate, "ingredient", ingredientRepository::getIngredientsByNames), Ingredient::getName, Ingredient::getId);
+        this.units = new Vocabulary<>("unit", unitRepository,
+                upsert(jdbcTemplate, "unit", unitRepository::getUnitsByNames), Unit::getName, Unit::getId);
+        this.types = new Vocabulary<>("type", typeRepository,
+                upsert(jdbcTemplate, "type", typeRepository::getTypesByNames), Type::getName, Type::getId);
+        this.countries = new Vocabulary<>("country", countryRepository,
+                upsert(jdbcTemplate, "country", countryRepository::getCountriesByNames), Country::getName, Country::getId);
+        this.categories = new Vocabulary<>("category", categoryRepository,
+                null, Category::getName, Category::getId);
+
+        gauge(meterRegistry, "ingredient", ingredients);
+        gauge(meterRegistry, "unit", units);
+        gauge(meterRegistry, "type", types);
+        gauge(meterRegistry, "country", countries);
+        gauge(meterRegistry, "category", categories);
+    }
+
+    /**
+     * Loads all dictionaries once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        ingredients.load();
+        units.load();
+        types.load();
+        countries.load();
+        categories.load();
+    }
+
+    public Vocabulary<Ingredient> ingredients() {
+        return ingredients;
+    }
+
+    public Vocabulary<Unit> units() {
+        return units;
+    }
+
+    public Vocabulary<Type> types() {
+        return types;
+    }
+
+    public Vocabulary<Country> countries() {
+        return countries;
+    }
+
+    public Vocabulary<Category> categories() {
+        return categories;
+    }
+
+    /**
+     * Makes the upsert of a vocabulary table.
+     * @param jdbcTemplate
+     *        template for the inserts
+     * @param table
+     *        name of the table
+     * @param read
+     *        query getting the entities by names
+     * @return function inserting the missing names and getting the entities.
+     */
+    private static <T> Function<Collection<String>, List<T>> upsert(JdbcTemplate jdbcTemplate, String table,
+                                                                     Function<Collection<String>, List<T>> read) {
+        VocabularyInserter inserter = new VocabularyInserter(jdbcTemplate, table);
+        return names -> inserter.upsert(names, read);
+    }
+
+    /**
+     * Registers the size gauge of a dictionary.
+     * @param meterRegistry
+     *        registry for the gauge
+     * @param name
+     *        name of the vocabulary
+     * @param vocabulary
+     *        the dictionary
+     */
+    private static void gauge(MeterRegistry meterRegistry, String name, Vocabulary<?> vocabulary) {
+        Gauge.builder("recipe.vocabulary.size", vocabulary, Vocabulary::size)
+                .tag("vocabulary", name)
+                .register(meterRegistry);
+    }
+}
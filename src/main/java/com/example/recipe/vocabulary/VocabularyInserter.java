@@ -0,0 +1,95 @@
+package com.example.recipe.vocabulary;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Inserts names into a vocabulary table, e.g. ingredient, unless they exist already.
+ * The names are sent as one multi-row INSERT ... ON DUPLICATE KEY UPDATE, so a batch of new names
+ * is one round trip and names inserted concurrently by another request don't fail.
+ * Names are sorted so concurrent inserts take the row locks in the same order.
+ * Names are stored trimmed, an empty name is a name too, e.g. the unit of ingredients without one.
+ */
+public class VocabularyInserter {
+    static final int CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String table;
+
+    /**
+     * @param jdbcTemplate
+     *        template for the inserts
+     * @param table
+     *        name of the table, its name column is table_name
+     */
+    public VocabularyInserter(JdbcTemplate jdbcTemplate, String table) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+    }
+
+    /**
+     * Inserts the names that aren't in the table yet and reads all of them back.
+     * @param names
+     *        names of the entities wanted
+     * @param read
+     *        query getting the entities by names, e.g. UnitRepository.getUnitsByNames
+     * @return entities with the names.
+     */
+    public <T> List<T> upsert(Collection<String> names, Function<Collection<String>, List<T>> read) {
+        Set<String> inserted = insertMissing(names);
+        if (inserted.isEmpty()) return List.of();
+        return read.apply(inserted);
+    }
+
+    /**
+     * Inserts the names that aren't in the table yet.
+     * @param names
+     *        names to be inserted
+     * @return the distinct trimmed names, to read the rows back with. Null names are skipped.
+     */
+    public Set<String> insertMissing(Collection<String> names) {
+        Set<String> distinct = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (String name : names) {
+            if (name != null) distinct.add(normalize(name));
+        }
+
+        List<String> chunk = new ArrayList<>(Math.min(distinct.size(), CHUNK_SIZE));
+        for (String name : distinct) {
+            chunk.add(name);
+            if (chunk.size() == CHUNK_SIZE) {
+                insert(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) insert(chunk);
+        return distinct;
+    }
+
+    /**
+     * @param name
+     *        name of an entity
+     * @return the name as it is stored and looked up.
+     */
+    public static String normalize(String name) {
+        return name.trim();
+    }
+
+    /**
+     * Sends one multi-row insert.
+     * @param names
+     *        names to be inserted
+     */
+    private void insert(List<String> names) {
+        String column = table + "_name";
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (").append(column).append(") VALUES ");
+        for (int i = 0; i < names.size(); i++) sql.append(i == 0 ? "(?)" : ", (?)");
+        sql.append(" ON DUPLICATE KEY UPDATE ").append(column).append(" = ").append(column);
+        jdbcTemplate.update(sql.toString(), names.toArray());
+    }
+}
@@ -0,0 +1,72 @@
+package exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception for failed calls to the recipe API, classified by kind.
+ */
+@ResponseStatus(HttpStatus.BAD_GATEWAY)
+public class UpstreamException extends RuntimeException {
+    private final Kind kind;
+
+    public UpstreamException(Kind kind, String error) {
+        super(error);
+        this.kind = kind;
+    }
+
+    public UpstreamException(Kind kind, String error, Throwable cause) {
+        super(error, cause);
+        this.kind = kind;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Kinds of failures from the recipe API.
+     */
+    public enum Kind {
+        /** Daily quota of the key is used up (402). */
+        QUOTA_EXHAUSTED,
+        /** Too many requests for the key (429). */
+        RATE_LIMITED,
+        /** Key was rejected (401, 403). */
+        UNAUTHORIZED,
+        /** Request was rejected, e.g. unknown recipe (other 4xx). */
+        CLIENT_ERROR,
+        /** API failed to answer (5xx). */
+        SERVER_ERROR,
+        /** API couldn't be reached or timed out. */
+        UNAVAILABLE;
+
+        /**
+         * Classifies a response status.
+         * @param status
+         *        status code of the response
+         * @return kind of the failure.
+         */
+        public static Kind of(int status) {
+            if (status == 402) return QUOTA_EXHAUSTED;
+            if (status == 429) return RATE_LIMITED;
+            if (status == 401 || status == 403) return UNAUTHORIZED;
+            if (status >= 500) return SERVER_ERROR;
+            return CLIENT_ERROR;
+        }
+
+        /**
+         * @return true if the failure is tied to the key and another key may succeed.
+         */
+        public boolean isKeyProblem() {
+            return this == QUOTA_EXHAUSTED || this == RATE_LIMITED || this == UNAUTHORIZED;
+        }
+
+        /**
+         * @return true if the failure means the API limit was reached.
+         */
+        public boolean isLimit() {
+            return this == QUOTA_EXHAUSTED || this == RATE_LIMITED;
+        }
+    }
+}
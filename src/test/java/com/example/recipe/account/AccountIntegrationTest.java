@@ -9,6 +9,8 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.HashMap;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties="secret.key=cHJvcGVydHlzdWJzdGFuY2V3aXRocmlkaW5nZ3JlYXRhcnRpY2xld2l0aGluZGlzYXA")
@@ -136,4 +138,43 @@ class AccountIntegrationTest {
                 .expectStatus().isOk()
                 .expectBody().toString().equals("true");
     }
-}
\ No newline at end of file
+
+    @Test
+    void tokenWithoutIdStillWorks() {
+        Account account = new Account(
+                1,
+                "test username",
+                "test name",
+                "test email",
+                "test"
+        );
+        String token = jwtService.newToken(new HashMap<>(), account);
+        webClient.get().uri("/account/get?accountId=1")
+                .headers(http -> http.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.username").isEqualTo("test username");
+    }
+
+    @Test
+    void tokenOfDeletedAccountIsRejected() {
+        Account account = new Account(
+                1,
+                "test username",
+                "test name",
+                "test email",
+                "test"
+        );
+        String token = jwtService.newToken(account);
+        webClient.delete().uri("/account/delete?accountId=1")
+                .headers(http -> http.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isOk();
+
+        webClient.get().uri("/account/get?accountId=1")
+                .headers(http -> http.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+}
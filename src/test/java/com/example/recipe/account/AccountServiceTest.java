@@ -2,15 +2,20 @@ package com.example.recipe.account;
 
 
 import com.example.recipe.RecipeApplication;
+import com.example.recipe.calendar.CalendarIndex;
 import com.example.recipe.category.Category;
 import com.example.recipe.country.Country;
 import com.example.recipe.ingredient.Ingredient;
 import com.example.recipe.instructions.Instruction;
 import com.example.recipe.measurement.Measurement;
 import com.example.recipe.recipe.Recipe;
+import com.example.recipe.recipe.RecipeJsonCache;
+import com.example.recipe.recipe.RecipeOwners;
+import com.example.recipe.security.ActiveAccounts;
 import com.example.recipe.recipe.RecipeRepository;
 import com.example.recipe.security.AuthRequest;
 import com.example.recipe.security.JwtService;
+import com.example.recipe.stats.AccountStatsService;
 import com.example.recipe.type.Type;
 import com.example.recipe.unit.Unit;
 import exceptions.BadRequestException;
@@ -51,6 +56,18 @@ class AccountServiceTest {
     @Mock
     private RecipeRepository recipeRepository;
     @Mock
+    private AccountStatsService accountStatsService;
+    @Mock
+    private CalendarIndex calendarIndex;
+    @Mock
+    private RecipeJsonCache recipeJsonCache;
+
+    @Mock
+    private RecipeOwners recipeOwners;
+
+    @Mock
+    private ActiveAccounts activeAccounts;
+    @Mock
     private JwtService jwtService;
 
     private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
@@ -475,6 +492,11 @@ class AccountServiceTest {
         testAccountService.delete(0);
 
         verify(accountRepository).delete(any());
+        verify(accountStatsService).accountDeleted(0);
+        verify(calendarIndex).evict(0);
+        verify(recipeJsonCache).invalidate(1);
+        verify(recipeOwners).invalidate(1);
+        verify(activeAccounts).evict(0);
     }
 
     @Test
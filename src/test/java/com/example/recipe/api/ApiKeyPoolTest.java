@@ -0,0 +1,117 @@
+package com.example.recipe.api;
+
+import exceptions.UpstreamException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ApiKeyPoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-03-01T18:00:00Z"));
+    private final ApiKeyPool apiKeyPool = new ApiKeyPool(meterRegistry, new String[]{"first", "second", " "},
+            5, Duration.ofSeconds(30), Duration.ofHours(1), clock);
+
+    private static HttpHeaders quotaLeft(String left) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(ApiKeyPool.QUOTA_LEFT, left);
+        return headers;
+    }
+
+    @Test
+    void blankKeysAreSkipped() {
+        assertEquals(2, apiKeyPool.size());
+        assertEquals("first", apiKeyPool.next().getValue());
+    }
+
+    @Test
+    void lowQuotaRotatesKeyUntilMidnight() {
+        ApiKeyPool.Key first = apiKeyPool.next();
+        apiKeyPool.success(first, quotaLeft("4.5"));
+
+        assertEquals("second", apiKeyPool.next().getValue());
+        assertEquals(4.5, meterRegistry.get("recipe.api.key.quota").tag("key", "0").gauge().value());
+
+        clock.now = Instant.parse("2024-03-02T00:00:00Z");
+        assertEquals("first", apiKeyPool.next().getValue());
+    }
+
+    @Test
+    void quotaExhaustedCoolsDownUntilMidnight() {
+        apiKeyPool.failure(apiKeyPool.next(), UpstreamException.Kind.QUOTA_EXHAUSTED, null);
+        apiKeyPool.failure(apiKeyPool.next(), UpstreamException.Kind.QUOTA_EXHAUSTED, null);
+
+        assertNull(apiKeyPool.next());
+        clock.now = Instant.parse("2024-03-01T23:59:59Z");
+        assertNull(apiKeyPool.next());
+        clock.now = Instant.parse("2024-03-02T00:00:00Z");
+        assertEquals("first", apiKeyPool.next().getValue());
+    }
+
+    @Test
+    void rateLimitBacksOff() {
+        ApiKeyPool.Key first = apiKeyPool.next();
+        apiKeyPool.failure(first, UpstreamException.Kind.RATE_LIMITED, null);
+        apiKeyPool.failure(apiKeyPool.next(), UpstreamException.Kind.UNAUTHORIZED, null);
+        assertNull(apiKeyPool.next());
+
+        clock.now = clock.now.plusSeconds(30);
+        assertEquals("first", apiKeyPool.next().getValue());
+
+        apiKeyPool.failure(first, UpstreamException.Kind.RATE_LIMITED, null);
+        clock.now = clock.now.plusSeconds(59);
+        assertNull(apiKeyPool.next());
+        clock.now = clock.now.plusSeconds(1);
+        assertEquals("first", apiKeyPool.next().getValue());
+    }
+
+    @Test
+    void healthyKeyIsPreferred() {
+        ApiKeyPool.Key first = apiKeyPool.next();
+        apiKeyPool.failure(first, UpstreamException.Kind.UNAUTHORIZED, null);
+        clock.now = clock.now.plus(Duration.ofHours(1));
+
+        assertEquals("second", apiKeyPool.next().getValue());
+        apiKeyPool.success(first, new HttpHeaders());
+        assertEquals("first", apiKeyPool.next().getValue());
+    }
+
+    @Test
+    void otherFailuresDontCoolDown() {
+        apiKeyPool.failure(apiKeyPool.next(), UpstreamException.Kind.SERVER_ERROR, null);
+
+        assertEquals("first", apiKeyPool.next().getValue());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
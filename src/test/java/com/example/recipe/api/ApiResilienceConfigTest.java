@@ -0,0 +1,80 @@
+package com.example.recipe.api;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiResilienceConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(ApiResilienceConfig.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withPropertyValues(
+                    "recipe.api.circuit.window=4",
+                    "recipe.api.circuit.minimum-calls=4",
+                    "recipe.api.bulkhead.max-concurrent=1");
+
+    private static WebClientResponseException response(HttpStatus status) {
+        return WebClientResponseException.create(status.value(), status.getReasonPhrase(), null, null, null);
+    }
+
+    @Test
+    void circuitOpensOnServerErrors() {
+        contextRunner.run(context -> {
+            CircuitBreaker circuitBreaker = context.getBean(CircuitBreaker.class);
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+
+            circuitBreaker.onError(0, TimeUnit.MILLISECONDS, response(HttpStatus.BAD_GATEWAY));
+            circuitBreaker.onError(0, TimeUnit.MILLISECONDS, new TimeoutException());
+            circuitBreaker.onSuccess(0, TimeUnit.MILLISECONDS);
+            circuitBreaker.onError(0, TimeUnit.MILLISECONDS, response(HttpStatus.SERVICE_UNAVAILABLE));
+
+            assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+            assertFalse(circuitBreaker.tryAcquirePermission());
+            assertEquals(1, meterRegistry.get("recipe.api.circuit.transitions").tag("from", "CLOSED").tag("to", "OPEN").counter().count());
+            assertEquals(1, meterRegistry.get("recipe.api.rejected").tag("by", "circuit").counter().count());
+        });
+    }
+
+    @Test
+    void clientErrorsDontOpenCircuit() {
+        contextRunner.run(context -> {
+            CircuitBreaker circuitBreaker = context.getBean(CircuitBreaker.class);
+
+            for (int i = 0; i < 4; i++) {
+                circuitBreaker.onError(0, TimeUnit.MILLISECONDS, response(HttpStatus.PAYMENT_REQUIRED));
+            }
+
+            assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        });
+    }
+
+    @Test
+    void bulkheadRejectsOverLimit() {
+        contextRunner.run(context -> {
+            Bulkhead bulkhead = context.getBean(Bulkhead.class);
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+
+            assertTrue(bulkhead.tryAcquirePermission());
+            assertFalse(bulkhead.tryAcquirePermission());
+            bulkhead.onComplete();
+            assertTrue(bulkhead.tryAcquirePermission());
+
+            assertEquals(1, meterRegistry.get("recipe.api.rejected").tag("by", "bulkhead").counter().count());
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.recipe.api;
+
+import com.example.recipe.apiClasses.ShortRecipe;
+import com.example.recipe.recipe.RandomResponse;
+import com.example.recipe.recipe.RecipeUtils;
+import exceptions.ApiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RandomRecipePoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecipeUtils recipeUtils = mock(RecipeUtils.class);
+
+    private RandomRecipePool pool(int lowWater, Duration minInterval) {
+        return new RandomRecipePool(recipeUtils, meterRegistry, 2, 6, lowWater, 10, minInterval, Duration.ofSeconds(5), 100);
+    }
+
+    private static Mono<RandomResponse> batch(int from, int to) {
+        List<ShortRecipe> recipes = new ArrayList<>();
+        for (int id = from; id <= to; id++) recipes.add(new ShortRecipe(id, "test title " + id, "test image"));
+        return Mono.just(new RandomResponse(recipes));
+    }
+
+    private static List<Integer> ids(Mono<List<ShortRecipe>> recipes) {
+        return recipes.block().stream().map(ShortRecipe::getId).toList();
+    }
+
+    @Test
+    void coldPoolWaitsForRefill() {
+        given(recipeUtils.randomResults(6)).willReturn(batch(1, 6));
+        RandomRecipePool pool = pool(0, Duration.ofMinutes(1));
+
+        assertEquals(List.of(1, 2), ids(pool.take("test caller")));
+        assertEquals(List.of(3, 4), ids(pool.take("other caller")));
+        assertEquals(2, meterRegistry.get("recipe.random.pool.size").gauge().value());
+        verify(recipeUtils).randomResults(6);
+    }
+
+    @Test
+    void lowPoolRefillsInBackground() throws Exception {
+        given(recipeUtils.randomResults(6)).willReturn(batch(1, 6), batch(7, 12));
+        RandomRecipePool pool = pool(5, Duration.ZERO);
+
+        pool.take("test caller").block();
+        for (int i = 0; i < 100 && pool.size() < 10; i++) Thread.sleep(10);
+
+        assertEquals(10, pool.size());
+        verify(recipeUtils, times(2)).randomResults(6);
+    }
+
+    @Test
+    void sameRecipeIsNotServedTwiceInARow() {
+        given(recipeUtils.randomResults(6)).willReturn(batch(1, 2), batch(1, 4));
+        RandomRecipePool pool = pool(0, Duration.ZERO);
+
+        List<Integer> first = ids(pool.take("test caller"));
+        List<Integer> second = ids(pool.take("test caller"));
+
+        assertEquals(List.of(1, 2), first);
+        assertEquals(List.of(3, 4), second);
+        assertEquals(List.of(1, 2), ids(pool.take("other caller")));
+    }
+
+    @Test
+    void excludedRecipesAreServedWhenNothingElseIsLeft() {
+        given(recipeUtils.randomResults(6)).willReturn(batch(1, 2), batch(1, 3));
+        RandomRecipePool pool = pool(0, Duration.ZERO);
+
+        assertEquals(List.of(1, 2), ids(pool.take("test caller")));
+        assertEquals(List.of(3, 1), ids(pool.take("test caller")));
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    void emptyPoolFetchesPageWhenRefillIsTooSoon() {
+        given(recipeUtils.randomResults(6)).willReturn(batch(1, 6));
+        given(recipeUtils.randomResults(2)).willReturn(batch(7, 8), batch(9, 10));
+        RandomRecipePool pool = pool(0, Duration.ofMinutes(1));
+
+        for (int page = 0; page < 3; page++) pool.take("caller " + page).block();
+
+        assertEquals(List.of(7, 8), ids(pool.take("test caller")));
+        assertEquals(List.of(9, 10), ids(pool.take("test caller")));
+        verify(recipeUtils).randomResults(6);
+        verify(recipeUtils, times(2)).randomResults(2);
+    }
+
+    @Test
+    void emptyPoolThrowsRefillError() {
+        given(recipeUtils.randomResults(6)).willReturn(Mono.error(new ApiException("API limit reached")));
+        RandomRecipePool pool = pool(0, Duration.ofMinutes(1));
+
+        assertThatThrownBy(() -> pool.take("test caller").block())
+                .isInstanceOf(ApiException.class)
+                .hasMessageContaining("API limit reached");
+        assertThatThrownBy(() -> pool.take("test caller").block())
+                .isInstanceOf(ApiException.class);
+        verify(recipeUtils).randomResults(6);
+    }
+}
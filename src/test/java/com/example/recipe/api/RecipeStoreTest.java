@@ -0,0 +1,160 @@
+package com.example.recipe.api;
+
+import com.example.recipe.apiClasses.Measures;
+import com.example.recipe.apiClasses.Metric;
+import com.example.recipe.apiClasses.RecipeFormat;
+import com.example.recipe.apiClasses.RecipeIngredients;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecipeStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private RecipeStore store;
+
+    private RecipeStore openStore(DataSize size) {
+        RecipeStore recipeStore = new RecipeStore(new ObjectMapper(), new SimpleMeterRegistry(), directory, size, true);
+        recipeStore.open();
+        return recipeStore;
+    }
+
+    private RecipeFormat recipe(int id, String title) {
+        return new RecipeFormat(
+                id,
+                title,
+                "test image",
+                2,
+                12,
+                "test source",
+                "<ol><li>test instruction</li></ol>",
+                "test summary",
+                22,
+                false,
+                true,
+                false,
+                false,
+                List.of("lunch"),
+                List.of("italian"),
+                List.of("pescatarian"),
+                List.of(new RecipeIngredients("test ingredient", new Measures(new Metric(12, "g"))))
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) store.close();
+    }
+
+    @Test
+    void putAndGetWorks() {
+        store = openStore(DataSize.ofKilobytes(64));
+        store.put(1, recipe(1, "test title"));
+
+        RecipeFormat found = store.get(1);
+        assertNotNull(found);
+        assertEquals("test title", found.getTitle());
+        assertEquals("g", found.getExtendedIngredients().get(0).getMeasures().getMetric().getUnitShort());
+        assertTrue(found.isGlutenFree());
+        assertNull(store.get(2));
+    }
+
+    @Test
+    void recipesSurviveReopen() {
+        store = openStore(DataSize.ofKilobytes(64));
+        store.put(1, recipe(1, "test title"));
+        store.put(2, recipe(2, "test title 2"));
+        store.put(1, recipe(1, "test title updated"));
+        store.close();
+
+        store = openStore(DataSize.ofKilobytes(64));
+        assertEquals(2, store.size());
+        assertEquals("test title updated", store.get(1).getTitle());
+        assertEquals("test title 2", store.get(2).getTitle());
+    }
+
+    @Test
+    void storeStaysInsideBudget() {
+        store = openStore(DataSize.ofKilobytes(8));
+        for (int i = 0; i < 200; i++) {
+            store.put(i, recipe(i, "test title " + i));
+        }
+
+        assertTrue(store.usedBytes() <= DataSize.ofKilobytes(8).toBytes());
+        assertEquals("test title 199", store.get(199).getTitle());
+        assertNull(store.get(0));
+    }
+
+    @Test
+    void compactionKeepsReplacedRecipeOnce() {
+        store = openStore(DataSize.ofKilobytes(8));
+        for (int i = 0; i < 200; i++) {
+            store.put(1, recipe(1, "test title " + i));
+        }
+
+        assertEquals(1, store.size());
+        assertEquals("test title 199", store.get(1).getTitle());
+    }
+
+    @Test
+    void corruptRecipeIsMiss() throws IOException {
+        store = openStore(DataSize.ofKilobytes(64));
+        store.put(1, recipe(1, "test title"));
+        store.close();
+
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("recipes.dat").toFile(), "rw")) {
+            file.seek(20);
+            file.write(new byte[] {1, 2, 3, 4});
+        }
+
+        store = openStore(DataSize.ofKilobytes(64));
+        assertNull(store.get(1));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void corruptRecipeStaysRemovedAfterReopen() throws IOException {
+        store = openStore(DataSize.ofKilobytes(64));
+        store.put(1, recipe(1, "test title"));
+        store.put(2, recipe(2, "test title 2"));
+        store.close();
+
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("recipes.dat").toFile(), "rw")) {
+            file.seek(20);
+            file.write(new byte[] {1, 2, 3, 4});
+        }
+
+        store = openStore(DataSize.ofKilobytes(64));
+        assertNull(store.get(1));
+        store.close();
+
+        store = openStore(DataSize.ofKilobytes(64));
+        assertEquals(1, store.size());
+        assertNull(store.get(1));
+        assertEquals("test title 2", store.get(2).getTitle());
+    }
+
+    @Test
+    void disabledStoreIsAlwaysMiss() {
+        store = new RecipeStore(new ObjectMapper(), new SimpleMeterRegistry(), directory, DataSize.ofKilobytes(64), false);
+        store.open();
+        store.put(1, recipe(1, "test title"));
+
+        assertNull(store.get(1));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.recipe.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class RequestCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer<Integer, String> coalescer = new RequestCoalescer<>("id", meterRegistry);
+
+    private double count(String result) {
+        return meterRegistry.get("recipe.api.calls").tag("call", "id").tag("result", result).counter().count();
+    }
+
+    @Test
+    void concurrentCallsShareOneCall() throws Exception {
+        int callers = 8;
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> upstream = Sinks.one();
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(coalescer.execute(1, () -> {
+                calls.incrementAndGet();
+                return upstream.asMono();
+            }).toFuture());
+        }
+        assertFalse(results.get(0).isDone());
+        upstream.tryEmitValue("test recipe");
+
+        for (CompletableFuture<String> result : results) {
+            assertEquals("test recipe", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, count("originated"));
+        assertEquals(callers - 1, count("coalesced"));
+    }
+
+    @Test
+    void waitersGetSameError() {
+        Sinks.One<String> upstream = Sinks.one();
+
+        CompletableFuture<String> first = coalescer.execute(1, upstream::asMono).toFuture();
+        CompletableFuture<String> waiter = coalescer.execute(1, () -> Mono.just("not called")).toFuture();
+        upstream.tryEmitError(new IllegalStateException("402 error"));
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("402 error");
+    }
+
+    @Test
+    void cancelledCallerDoesNotCancelCall() {
+        Sinks.One<String> upstream = Sinks.one();
+
+        coalescer.execute(1, upstream::asMono).subscribe().dispose();
+        CompletableFuture<String> waiter = coalescer.execute(1, () -> Mono.just("not called")).toFuture();
+        upstream.tryEmitValue("test recipe");
+
+        assertEquals("test recipe", waiter.join());
+    }
+
+    @Test
+    void callIsMadeAgainAfterFinishing() {
+        assertEquals("first", coalescer.execute(1, () -> Mono.just("first")).block());
+        assertEquals("second", coalescer.execute(1, () -> Mono.just("second")).block());
+        assertEquals(2, count("originated"));
+        assertEquals(0, count("coalesced"));
+    }
+
+    @Test
+    void callIsNotMadeBeforeSubscribing() {
+        AtomicInteger calls = new AtomicInteger();
+
+        Mono<String> result = coalescer.execute(1, () -> {
+            calls.incrementAndGet();
+            return Mono.just("test recipe");
+        });
+
+        assertEquals(0, calls.get());
+        assertEquals("test recipe", result.block());
+        assertEquals(1, calls.get());
+    }
+}
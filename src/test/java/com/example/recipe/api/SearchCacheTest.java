@@ -0,0 +1,87 @@
+package com.example.recipe.api;
+
+import com.example.recipe.apiClasses.ShortRecipe;
+import com.example.recipe.recipe.RecipeResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SearchCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SearchCache searchCache = new SearchCache(meterRegistry, Duration.ofMinutes(10), Duration.ofHours(1), DataSize.ofMegabytes(1));
+
+    @Test
+    void searchKeyIgnoresFilterOrderAndCase() {
+        SearchKey key = SearchKey.of(" Pasta ", "pork,beef", "italian,asian", "vegan", "", "main course", "time", "asc", 0);
+        SearchKey other = SearchKey.of("pasta", "Beef, pork", "asian,italian,", "VEGAN", "", "main  course", "time", "ASC", 0);
+
+        assertEquals(key, other);
+        assertEquals(key.hashCode(), other.hashCode());
+        assertEquals("asian,italian", key.getCuisine());
+        assertEquals("beef,pork", key.getIngredients());
+    }
+
+    @Test
+    void searchKeyDiffersWithOffset() {
+        SearchKey key = SearchKey.of("pasta", "", "", "", "", "", "", "", 0);
+        SearchKey other = SearchKey.of("pasta", "", "", "", "", "", "", "", 12);
+
+        assertNotEquals(key, other);
+    }
+
+    @Test
+    void getFindsSameSearchWithOtherFilterOrder() {
+        RecipeResponse response = new RecipeResponse(List.of(new ShortRecipe(1, "test title", "test image")));
+
+        assertNull(searchCache.get(SearchKey.of("pasta", "", "italian,asian", "", "", "", "", "", 0)));
+        searchCache.put(SearchKey.of("pasta", "", "italian,asian", "", "", "", "", "", 0), response);
+
+        assertSame(response, searchCache.get(SearchKey.of("pasta", "", "asian,italian", "", "", "", "", "", 0)));
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void putIgnoresMissingResults() {
+        SearchKey key = SearchKey.of("pasta", "", "", "", "", "", "", "", 0);
+        searchCache.put(key, null);
+
+        assertNull(searchCache.get(key));
+    }
+
+    @Test
+    void staleResultsAreOnlyServedAsFallback() throws InterruptedException {
+        SearchCache staleCache = new SearchCache(meterRegistry, Duration.ZERO, Duration.ofHours(1), DataSize.ofMegabytes(1));
+        SearchKey key = SearchKey.of("pasta", "", "", "", "", "", "", "", 0);
+        RecipeResponse response = new RecipeResponse(List.of(new ShortRecipe(1, "test title", "test image")));
+        staleCache.put(key, response);
+        Thread.sleep(2);
+
+        assertNull(staleCache.get(key));
+        assertSame(response, staleCache.getStale(key));
+    }
+
+    @Test
+    void staleResultsCountAsMiss() throws InterruptedException {
+        SimpleMeterRegistry staleRegistry = new SimpleMeterRegistry();
+        SearchCache staleCache = new SearchCache(staleRegistry, Duration.ZERO, Duration.ofHours(1), DataSize.ofMegabytes(1));
+        SearchKey key = SearchKey.of("pasta", "", "", "", "", "", "", "", 0);
+        staleCache.put(key, new RecipeResponse(List.of(new ShortRecipe(1, "test title", "test image"))));
+        Thread.sleep(2);
+
+        staleCache.get(key);
+        staleCache.getStale(key);
+
+        assertEquals(0, staleRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, staleRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+}
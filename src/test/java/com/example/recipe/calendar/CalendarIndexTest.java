@@ -0,0 +1,156 @@
+package com.example.recipe.calendar;
+
+import com.example.recipe.recipe.CalendarEntry;
+import com.example.recipe.recipe.Day;
+import com.example.recipe.recipe.RecipeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CalendarIndexTest {
+    private static final LocalDate MONDAY = LocalDate.of(2022, 12, 12);
+
+    private final RecipeRepository recipeRepository = mock(RecipeRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CalendarIndex calendarIndex = new CalendarIndex(recipeRepository, meterRegistry, Duration.ofMinutes(10), 100);
+
+    private static CalendarEntry entry(int id, LocalDate date, boolean finished) {
+        return new CalendarEntry() {
+            @Override
+            public int getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDate getToDoDate() {
+                return date;
+            }
+
+            @Override
+            public Boolean getFinished() {
+                return finished;
+            }
+        };
+    }
+
+    private List<Integer> states(LocalDate from, LocalDate to) {
+        return calendarIndex.days(1, from, to).stream().map(Day::getState).toList();
+    }
+
+    @Test
+    void daysAreLoadedOnceForAnyRange() {
+        given(recipeRepository.getCalendar(1)).willReturn(List.of(
+                entry(1, MONDAY, false), entry(2, MONDAY.plusDays(2), true), entry(3, MONDAY.plusYears(1), false)));
+
+        assertEquals(List.of(0, 1, 0, 2, 0), states(MONDAY.minusDays(1), MONDAY.plusDays(3)));
+        List<Day> year = calendarIndex.days(1, MONDAY, MONDAY.plusYears(1));
+        assertEquals(366, year.size());
+        assertEquals(MONDAY.plusYears(1), year.get(365).getDate());
+        assertEquals(1, year.get(365).getState());
+
+        verify(recipeRepository, times(1)).getCalendar(1);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void finishedWinsWithManyRecipesOnDay() {
+        given(recipeRepository.getCalendar(1)).willReturn(List.of(entry(1, MONDAY, true), entry(2, MONDAY, false)));
+
+        assertEquals(List.of(2), states(MONDAY, MONDAY));
+
+        calendarIndex.removed(1, 1);
+        assertEquals(List.of(1), states(MONDAY, MONDAY));
+    }
+
+    @Test
+    void writesChangeLoadedCalendar() {
+        given(recipeRepository.getCalendar(1)).willReturn(List.of(entry(1, MONDAY, false)));
+        states(MONDAY, MONDAY);
+
+        calendarIndex.scheduled(1, 2, MONDAY.minusDays(3), false);
+        calendarIndex.moved(1, 1, MONDAY.plusDays(1));
+        calendarIndex.finished(1, List.of(1, 5), true);
+
+        assertEquals(List.of(1, 0, 0, 0, 2), states(MONDAY.minusDays(3), MONDAY.plusDays(1)));
+        verify(recipeRepository, times(1)).getCalendar(1);
+    }
+
+    @Test
+    void movingRecipeWithoutDateLoadsCalendarAgain() {
+        given(recipeRepository.getCalendar(1)).willReturn(List.of());
+        states(MONDAY, MONDAY);
+
+        calendarIndex.moved(1, 1, MONDAY);
+        given(recipeRepository.getCalendar(1)).willReturn(List.of(entry(1, MONDAY, true)));
+
+        assertEquals(List.of(2), states(MONDAY, MONDAY));
+        verify(recipeRepository, times(2)).getCalendar(1);
+    }
+
+    @Test
+    void writesWaitForCommit() {
+        given(recipeRepository.getCalendar(1)).willReturn(List.of());
+        states(MONDAY, MONDAY);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            calendarIndex.scheduled(1, 1, MONDAY, false);
+            assertEquals(List.of(0), states(MONDAY, MONDAY));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(List.of(1), states(MONDAY, MONDAY));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void datesOutsideShownYearsAreSkipped() {
+        given(recipeRepository.getCalendar(1)).willReturn(List.of(
+                entry(1, LocalDate.of(1, 1, 1), false), entry(2, MONDAY, false)));
+
+        assertEquals(List.of(0), states(LocalDate.of(1, 1, 1), LocalDate.of(1, 1, 1)));
+        assertEquals(List.of(1), states(MONDAY, MONDAY));
+    }
+
+    @Test
+    void changeDuringLoadIsNotLost() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(recipeRepository.getCalendar(1)).willAnswer(invocation -> {
+            List<CalendarEntry> rows = List.of(entry(1, MONDAY, false));
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return rows;
+        });
+
+        Thread load = new Thread(() -> states(MONDAY, MONDAY));
+        load.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        Thread commit = new Thread(() -> calendarIndex.finished(1, List.of(1), true));
+        commit.start();
+        while (commit.getState() == Thread.State.NEW || commit.getState() == Thread.State.RUNNABLE) Thread.onSpinWait();
+        release.countDown();
+        load.join();
+        commit.join();
+
+        assertEquals(List.of(2), states(MONDAY, MONDAY));
+        verify(recipeRepository, times(1)).getCalendar(1);
+    }
+}
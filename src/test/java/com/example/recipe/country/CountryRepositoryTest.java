@@ -3,14 +3,18 @@ package com.example.recipe.country;
 import com.example.recipe.RecipeApplication;
 import com.example.recipe.ingredient.Ingredient;
 import com.example.recipe.ingredient.IngredientRepository;
+import com.example.recipe.vocabulary.VocabularyInserter;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @ActiveProfiles("test")
@@ -21,6 +25,13 @@ public class CountryRepositoryTest {
     @Autowired
     private CountryRepository testCountryRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Country> upsert(List<String> names) {
+        return new VocabularyInserter(jdbcTemplate, "country").upsert(names, testCountryRepository::getCountriesByNames);
+    }
+
     @AfterEach
     void deleteAll() {
         testCountryRepository.deleteAll();
@@ -38,4 +49,20 @@ public class CountryRepositoryTest {
         assertEquals(1, foundEntity.getId());
         assertNull(foundNoneEntity);
     }
+
+    @Test
+    void upsertCountriesWorks() {
+        long before = testCountryRepository.count();
+        Country existing = testCountryRepository.save(new Country("test"));
+
+        List<Country> found = upsert(List.of("test", "new", " new ", "other"));
+        List<Country> foundAgain = upsert(List.of("new", "other"));
+
+        assertEquals(3, found.size());
+        assertTrue(found.stream().anyMatch(e -> e.getId() == existing.getId()));
+        assertEquals(2, foundAgain.size());
+        assertTrue(foundAgain.stream().map(Country::getName).toList().containsAll(List.of("new", "other")));
+        assertEquals(before + 3, testCountryRepository.count());
+        assertTrue(upsert(List.of()).isEmpty());
+    }
 }
@@ -3,14 +3,18 @@ package com.example.recipe.ingredient;
 import com.example.recipe.RecipeApplication;
 import com.example.recipe.type.Type;
 import com.example.recipe.type.TypeRepository;
+import com.example.recipe.vocabulary.VocabularyInserter;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @ActiveProfiles("test")
@@ -21,6 +25,13 @@ public class IngredientRepositoryTest {
     @Autowired
     private IngredientRepository testIngredientRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Ingredient> upsert(List<String> names) {
+        return new VocabularyInserter(jdbcTemplate, "ingredient").upsert(names, testIngredientRepository::getIngredientsByNames);
+    }
+
     @AfterEach
     void deleteAll() {
         testIngredientRepository.deleteAll();
@@ -38,4 +49,20 @@ public class IngredientRepositoryTest {
         assertEquals(1, foundEntity.getId());
         assertNull(foundNoneEntity);
     }
+
+    @Test
+    void upsertIngredientsWorks() {
+        long before = testIngredientRepository.count();
+        Ingredient existing = testIngredientRepository.save(new Ingredient("test"));
+
+        List<Ingredient> found = upsert(List.of("test", "new", " new ", "other"));
+        List<Ingredient> foundAgain = upsert(List.of("new", "other"));
+
+        assertEquals(3, found.size());
+        assertTrue(found.stream().anyMatch(e -> e.getId() == existing.getId()));
+        assertEquals(2, foundAgain.size());
+        assertTrue(foundAgain.stream().map(Ingredient::getName).toList().containsAll(List.of("new", "other")));
+        assertEquals(before + 3, testIngredientRepository.count());
+        assertTrue(upsert(List.of()).isEmpty());
+    }
 }
@@ -4,6 +4,7 @@ import com.example.recipe.account.Account;
 import com.example.recipe.category.Category;
 import com.example.recipe.country.Country;
 import com.example.recipe.ingredient.Ingredient;
+import com.example.recipe.response.BulkRes;
 import com.example.recipe.response.FullRecipeRes;
 import com.example.recipe.response.ListRes;
 import com.example.recipe.response.MeasurementRes;
@@ -11,6 +12,9 @@ import com.example.recipe.response.RecipeRes;
 import com.example.recipe.security.Authorization;
 import com.example.recipe.type.Type;
 import com.example.recipe.unit.Unit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import exceptions.ForbiddenException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -19,18 +23,28 @@ import org.springframework.http.MediaType;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(value= RecipeController.class)
@@ -157,19 +171,18 @@ class RecipeControllerTest {
     @Test
     void favouriteRecipeWorks() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
-        given(recipeService.toggleFavourite(anyInt())).willReturn(true);
-        given(authorization.isOwnRecipe(any(), anyInt())).willReturn(true);
+        given(recipeService.toggleFavourite(anyInt(), anyInt())).willReturn(true);
 
         mockMvc.perform(put("/recipe/set/favourite?recipeId=1", 1).with(csrf())
                         .with(user(account)))
                 .andExpect(status().isOk());
+        verify(recipeService).toggleFavourite(1, 1);
     }
 
     @Test
     void favouriteRecipeThrowsWithNoParams() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
-        given(recipeService.toggleFavourite(anyInt())).willReturn(true);
-        given(authorization.isOwnRecipe(any(), anyInt())).willReturn(true);
+        given(recipeService.toggleFavourite(anyInt(), anyInt())).willReturn(true);
 
         mockMvc.perform(put("/recipe/set/favourite", 1).with(csrf())
                         .with(user(account)))
@@ -179,8 +192,7 @@ class RecipeControllerTest {
     @Test
     void favouriteRecipeThrowsWithNotOwnRecipe() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
-        given(recipeService.toggleFavourite(anyInt())).willReturn(true);
-        given(authorization.isOwnRecipe(any(), anyInt())).willReturn(false);
+        given(recipeService.toggleFavourite(2, 1)).willThrow(new ForbiddenException("no own recipe with id"));
 
         mockMvc.perform(put("/recipe/set/favourite?recipeId=2", 1).with(csrf())
                         .with(user(account)))
@@ -191,8 +203,7 @@ class RecipeControllerTest {
     void doLaterRecipeWorks() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
 
-        given(recipeService.toggleDoLater(anyInt())).willReturn(true);
-        given(authorization.isOwnRecipe(any(), anyInt())).willReturn(true);
+        given(recipeService.toggleDoLater(anyInt(), anyInt())).willReturn(true);
 
         mockMvc.perform(put("/recipe/set/doLater?recipeId=1", 1).with(csrf())
                         .with(user(account)))
@@ -203,8 +214,7 @@ class RecipeControllerTest {
     void doLaterRecipeThrowsWithNoParams() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
 
-        given(recipeService.toggleDoLater(anyInt())).willReturn(true);
-        given(authorization.isOwnRecipe(any(), anyInt())).willReturn(true);
+        given(recipeService.toggleDoLater(anyInt(), anyInt())).willReturn(true);
 
         mockMvc.perform(put("/recipe/set/doLater", 1).with(csrf())
                         .with(user(account)))
@@ -214,20 +224,18 @@ class RecipeControllerTest {
     void doLaterRecipeThrowsWithNotOwnRecipe() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
 
-        given(recipeService.toggleDoLater(anyInt())).willReturn(true);
-        given(authorization.isOwnRecipe(any(), anyInt())).willReturn(false);
+        given(recipeService.toggleDoLater(2, 1)).willThrow(new ForbiddenException("no own recipe with id"));
 
-        mockMvc.perform(put("/recipe/set/doLater", 1).with(csrf())
+        mockMvc.perform(put("/recipe/set/doLater?recipeId=2", 1).with(csrf())
                         .with(user(account)))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isForbidden());
     }
 
     @Test
     void setDateRecipeWorks() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
 
-        given(recipeService.setDate(anyInt(), any())).willReturn(true);
-        given(authorization.isOwnRecipe(any(), anyInt())).willReturn(true);
+        given(recipeService.setDate(anyInt(), anyInt(), any())).willReturn(true);
 
         mockMvc.perform(put("/recipe/set/calendar?recipeId=1&date=2022-12-12", 1).with(csrf())
                         .with(user(account)))
@@ -238,8 +246,7 @@ class RecipeControllerTest {
     void setDateRecipeThrowsWithNoParams() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
 
-        given(recipeService.setDate(anyInt(), any())).willReturn(true);
-        given(authorization.isOwnRecipe(any(), anyInt())).willReturn(true);
+        given(recipeService.setDate(anyInt(), anyInt(), any())).willReturn(true);
 
         mockMvc.perform(put("/recipe/set/doLater", 1).with(csrf())
                         .with(user(account)))
@@ -249,20 +256,18 @@ class RecipeControllerTest {
     void setDateRecipeThrowsWithNotOwnRecipe() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
 
-        given(recipeService.setDate(anyInt(), any())).willReturn(true);
-        given(authorization.isOwnRecipe(any(), anyInt())).willReturn(false);
+        given(recipeService.setDate(2, 1, LocalDate.of(2022, 12, 12))).willThrow(new ForbiddenException("no own recipe with id"));
 
-        mockMvc.perform(put("/recipe/set/doLater", 1).with(csrf())
+        mockMvc.perform(put("/recipe/set/calendar?recipeId=2&date=2022-12-12", 1).with(csrf())
                         .with(user(account)))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isForbidden());
     }
 
     @Test
     void finishRecipeWorks() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
 
-        given(recipeService.finishRecipe(anyInt())).willReturn(true);
-        given(authorization.isOwnRecipe(any(), anyInt())).willReturn(true);
+        given(recipeService.finishRecipe(anyInt(), anyInt())).willReturn(true);
 
         mockMvc.perform(put("/recipe/set/finished?recipeId=1", 1).with(csrf())
                         .with(user(account)))
@@ -273,8 +278,7 @@ class RecipeControllerTest {
     void finishRecipeThrowsWithNoParams() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
 
-        given(recipeService.finishRecipe(anyInt())).willReturn(true);
-        given(authorization.isOwnRecipe(any(), anyInt())).willReturn(true);
+        given(recipeService.finishRecipe(anyInt(), anyInt())).willReturn(true);
 
         mockMvc.perform(put("/recipe/set/finished", 1).with(csrf())
                         .with(user(account)))
@@ -284,22 +288,43 @@ class RecipeControllerTest {
     void finishRecipeThrowsWithNotOwnRecipe() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
 
-        given(recipeService.toggleDoLater(anyInt())).willReturn(true);
-        given(authorization.isOwnRecipe(any(), anyInt())).willReturn(false);
+        given(recipeService.finishRecipe(2, 1)).willThrow(new ForbiddenException("no own recipe with id"));
 
         mockMvc.perform(put("/recipe/set/finished?recipeId=2", 1).with(csrf())
                         .with(user(account)))
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void bulkUpdateWorks() throws Exception {
+        Account account = new Account(1, "test", "test", "test", "test");
+        given(recipeService.bulkUpdate(any(), anyInt()))
+                .willReturn(new BulkRes(Map.of(1, BulkRes.Outcome.UPDATED)));
+
+        mockMvc.perform(put("/recipe/set/bulk").with(csrf())
+                        .with(user(account))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"ids": [1], "operation": "FAVOURITE", "value": true}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.1").value("UPDATED"));
+        verify(recipeService).bulkUpdate(argThat(update -> update.getIds().equals(List.of(1))
+                && update.getOperation() == BulkUpdate.Operation.FAVOURITE && update.getValue()), eq(1));
+    }
+
     @Test
     void getRecipeSearchWorks() throws Exception {
         ListRes response = new ListRes(Arrays.asList("test1", "test2"), false);
 
-        given(recipeService.getSearch(any(), any(), any(), any(), any(), any(), any(), any(), anyInt())).willReturn(response);
+        given(recipeService.getSearch(any(), any(), any(), any(), any(), any(), any(), any(), anyInt())).willReturn(Mono.just(response));
 
-        mockMvc.perform(get("/recipe/get/api/search?search=tes&ingredients=&cuisine=&diet=&intolerances=&type=&sort=&sortDirection=&page=0").with(csrf())
+        MvcResult result = mockMvc.perform(get("/recipe/get/api/search?search=tes&ingredients=&cuisine=&diet=&intolerances=&type=&sort=&sortDirection=&page=0").with(csrf())
                         .with(user("test")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.recipes[0]").value(response.getRecipes().get(0)))
                 .andExpect(jsonPath("$.recipes[1]").value(response.getRecipes().get(1)))
@@ -310,7 +335,7 @@ class RecipeControllerTest {
     void getRecipeSearchThrowsWithNoParams() throws Exception {
         ListRes response = new ListRes(Arrays.asList("test1", "test2"), false);
 
-        given(recipeService.getSearch(any(), any(), any(), any(), any(), any(), any(), any(), anyInt())).willReturn(response);
+        given(recipeService.getSearch(any(), any(), any(), any(), any(), any(), any(), any(), anyInt())).willReturn(Mono.just(response));
 
         mockMvc.perform(get("/recipe/get/api/search").with(csrf())
                         .with(user("test")))
@@ -334,10 +359,14 @@ class RecipeControllerTest {
                 List.of(new Category("vegetarian")),
                 List.of(new MeasurementRes(new Ingredient("ingredient"), 12, new Unit("unit")))
         );
-        given(recipeService.getSearchById(anyInt())).willReturn(recipe);
+        given(recipeService.getSearchById(anyInt())).willReturn(Mono.just(recipe));
 
-        mockMvc.perform(get("/recipe/get/api/id?id=1",1).with(csrf())
+        MvcResult result = mockMvc.perform(get("/recipe/get/api/id?id=1",1).with(csrf())
                 .with(user("test")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.title").value(recipe.getTitle()))
                 .andExpect(jsonPath("$.image").value(recipe.getImage()))
@@ -376,6 +405,22 @@ class RecipeControllerTest {
                 .andExpect(jsonPath("$.nextPage").value(response.getNextPage()));
     }
 
+    @Test
+    void getFavouriteRecipesWorksWithCursor() throws Exception {
+        Account account = new Account(1, "test", "test", "test", "test");
+        ListRes response = new ListRes(Arrays.asList("test1", "test2"), true, "next");
+
+        given(recipeService.getFavouriteAfter(1, "cursor")).willReturn(response);
+
+        mockMvc.perform(get("/recipe/get/favourite?accountId=1&cursor=cursor").with(csrf())
+                        .with(user(account)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipes[0]").value(response.getRecipes().get(0)))
+                .andExpect(jsonPath("$.nextPage").value(true))
+                .andExpect(jsonPath("$.cursor").value("next"));
+        verify(recipeService, never()).getFavourite(anyInt(), anyInt());
+    }
+
     @Test
     void getFavouriteRecipesThrowsWithNotOwnAccount() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
@@ -400,6 +445,21 @@ class RecipeControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void getDoLaterRecipesWorksWithCursor() throws Exception {
+        Account account = new Account(1, "test", "test", "test", "test");
+        ListRes response = new ListRes(Arrays.asList("test1", "test2"), false, null);
+
+        given(recipeService.getDoLaterAfter(1, "cursor")).willReturn(response);
+
+        mockMvc.perform(get("/recipe/get/doLater?accountId=1&cursor=cursor").with(csrf())
+                        .with(user(account)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextPage").value(false))
+                .andExpect(jsonPath("$.cursor").doesNotExist());
+        verify(recipeService, never()).getDoLater(anyInt(), anyInt());
+    }
+
     @Test
     void getDoLaterRecipesWorks() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
@@ -439,6 +499,37 @@ class RecipeControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    private static byte[] json(FullRecipeRes recipe) {
+        RecipeFlags flags = new RecipeFlags() {
+            @Override
+            public Integer getAccountId() {
+                return recipe.getAccount();
+            }
+
+            @Override
+            public Boolean getFavourite() {
+                return recipe.isFavourite();
+            }
+
+            @Override
+            public Boolean getDoLater() {
+                return recipe.isDoLater();
+            }
+
+            @Override
+            public Boolean getFinished() {
+                return recipe.isFinished();
+            }
+
+            @Override
+            public LocalDate getToDoDate() {
+                return recipe.getDate();
+            }
+        };
+        return new RecipeJsonCache(new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry(), Duration.ofHours(1), DataSize.ofMegabytes(1))
+                .get(recipe.getId(), flags, id -> recipe);
+    }
+
     @Test
     void getRecipeFromDBWorks() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
@@ -462,7 +553,7 @@ class RecipeControllerTest {
                 List.of("vegan"),
                 List.of(new MeasurementRes(new Ingredient("name"), 12, new Unit("unit")))
         );
-        given(recipeService.getRecipe(anyInt())).willReturn(recipe);
+        given(recipeService.getRecipe(anyInt())).willReturn(json(recipe));
         given(authorization.isOwnRecipe(any(), anyInt())).willReturn(true);
 
         mockMvc.perform(get("/recipe/get/db?recipeId=2", 1).with(csrf())
@@ -513,7 +604,7 @@ class RecipeControllerTest {
                 List.of("vegan"),
                 List.of(new MeasurementRes(new Ingredient("name"), 12, new Unit("unit")))
         );
-        given(recipeService.getRecipe(anyInt())).willReturn(recipe);
+        given(recipeService.getRecipe(anyInt())).willReturn(json(recipe));
         given(authorization.isOwnRecipe(any(), anyInt())).willReturn(false);
 
         mockMvc.perform(get("/recipe/get/db?recipeId=2", 1).with(csrf())
@@ -544,7 +635,7 @@ class RecipeControllerTest {
                 List.of("vegan"),
                 List.of(new MeasurementRes(new Ingredient("name"), 12, new Unit("unit")))
         );
-        given(recipeService.getRecipe(anyInt())).willReturn(recipe);
+        given(recipeService.getRecipe(anyInt())).willReturn(json(recipe));
         given(authorization.isOwnRecipe(any(), anyInt())).willReturn(true);
 
         mockMvc.perform(get("/recipe/get/db", 1).with(csrf())
@@ -664,6 +755,29 @@ class RecipeControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void getCalendarRangeWorks() throws Exception {
+        Account account = new Account(1, "test", "test", "test", "test");
+        given(recipeService.getCalendarRange(1, LocalDate.of(2022, 12, 1), LocalDate.of(2022, 12, 31)))
+                .willReturn(List.of(new Day(LocalDate.of(2022, 12, 1), 2)));
+
+        mockMvc.perform(get("/recipe/get/calendar?accountId=1&from=2022-12-01&to=2022-12-31").with(csrf())
+                        .with(user(account)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].date").value("2022-12-01"))
+                .andExpect(jsonPath("$[0].state").value(2));
+    }
+
+    @Test
+    void getCalendarRangeThrowsWithNotOwnAccount() throws Exception {
+        Account account = new Account(1, "test", "test", "test", "test");
+
+        mockMvc.perform(get("/recipe/get/calendar?accountId=2&from=2022-12-01&to=2022-12-31").with(csrf())
+                        .with(user(account)))
+                .andExpect(status().isForbidden());
+        verify(recipeService, never()).getCalendarRange(anyInt(), any(), any());
+    }
+
     @Test
     void deleteRecipeWorks() throws Exception {
         Account account = new Account(1, "test", "test", "test", "test");
@@ -702,10 +816,15 @@ class RecipeControllerTest {
     void getRandomRecipesWork() throws Exception {
         ListRes response = new ListRes(Arrays.asList("test1", "test2"), false);
 
-        given(recipeService.getRandom()).willReturn(response);
+        given(recipeService.getRandom("test ip")).willReturn(Mono.just(response));
 
-        mockMvc.perform(get("/recipe/get/api/random").with(csrf())
+        MvcResult result = mockMvc.perform(get("/recipe/get/api/random").with(csrf())
+                        .header("Fly-Client-IP", "test ip")
                         .with(user("test")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.recipes[0]").value(response.getRecipes().get(0)))
                 .andExpect(jsonPath("$.recipes[1]").value(response.getRecipes().get(1)))
@@ -19,6 +19,7 @@ import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties="secret.key=cHJvcGVydHlzdWJzdGFuY2V3aXRocmlkaW5nZ3JlYXRhcnRpY2xld2l0aGluZGlzYXA")
 @ActiveProfiles("test")
@@ -665,6 +666,57 @@ class RecipeIntegrationTest {
                 .jsonPath("$.recipes[2].id").isEqualTo(654857);
     }
 
+    @Test
+    void searchRecipeRotatesKeyAfterQuotaExhausted() throws InterruptedException {
+        Account account = new Account(
+                1,
+                "test username",
+                "test name",
+                "test email",
+                "test"
+        );
+        String token = jwtService.newToken(account);
+        while (mockWebServer.takeRequest(0, TimeUnit.SECONDS) != null) ;
+
+        mockWebServer.enqueue(new MockResponse().setResponseCode(402));
+        for (int i = 0; i < 2; i++) {
+            mockWebServer.enqueue(
+                    new MockResponse().setResponseCode(200)
+                            .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+                            .setHeader("X-API-Quota-Left", "120")
+                            .setBody(
+                                    """
+                                    {
+                                        "results": [
+                                            {
+                                                "id": 654959,
+                                                "title": "Pasta With Tuna",
+                                                "image": "https://spoonacular.com/recipeImages/654959-312x231.jpg",
+                                                "imageType": "jpg"
+                                            }
+                                        ]
+                                    }
+                                    """
+                            )
+            );
+        }
+
+        webClient.get().uri("/recipe/get/api/search?search=pasta&ingredients=&cuisine=&diet=&intolerances=&type=&sort=&sortDirection=&page=0")
+                .headers(http -> http.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.recipes[0].id").isEqualTo(654959);
+        webClient.get().uri("/recipe/get/api/search?search=tuna&ingredients=&cuisine=&diet=&intolerances=&type=&sort=&sortDirection=&page=0")
+                .headers(http -> http.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isOk();
+
+        Assertions.assertTrue(mockWebServer.takeRequest().getPath().contains("apiKey=testkey2"));
+        Assertions.assertTrue(mockWebServer.takeRequest().getPath().contains("apiKey=testkey&"));
+        Assertions.assertTrue(mockWebServer.takeRequest().getPath().contains("apiKey=testkey&"));
+    }
+
     @Test
     void getFavouriteWorks() {
         Account account = new Account(
@@ -0,0 +1,109 @@
+package com.example.recipe.recipe;
+
+import com.example.recipe.response.FullRecipeRes;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecipeJsonCacheTest {
+    private static final LocalDate DATE = LocalDate.of(2022, 12, 12);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecipeJsonCache recipeJsonCache = new RecipeJsonCache(objectMapper, meterRegistry, Duration.ofHours(1), DataSize.ofMegabytes(1));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private static FullRecipeRes recipe(int id) {
+        return new FullRecipeRes(id, "test recipe", "image", 2, 30, "original", new ArrayList<>(List.of("first step")),
+                "summary", 50.0, 1, true, true, true, DATE, new ArrayList<>(List.of("lunch")), new ArrayList<>(),
+                new ArrayList<>(List.of("glutenfree")), new ArrayList<>());
+    }
+
+    private static RecipeFlags flags(boolean favourite, boolean doLater, boolean finished, LocalDate date) {
+        return new RecipeFlags() {
+            @Override
+            public Integer getAccountId() {
+                return 1;
+            }
+
+            @Override
+            public Boolean getFavourite() {
+                return favourite;
+            }
+
+            @Override
+            public Boolean getDoLater() {
+                return doLater;
+            }
+
+            @Override
+            public Boolean getFinished() {
+                return finished;
+            }
+
+            @Override
+            public LocalDate getToDoDate() {
+                return date;
+            }
+        };
+    }
+
+    private JsonNode get(int id, RecipeFlags flags) throws Exception {
+        return objectMapper.readTree(recipeJsonCache.get(id, flags, recipeId -> {
+            loads.incrementAndGet();
+            return recipe(recipeId);
+        }));
+    }
+
+    @Test
+    void recipeIsSerializedOnce() throws Exception {
+        get(1, flags(false, false, false, null));
+        JsonNode json = get(1, flags(false, false, false, null));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals("test recipe", json.get("title").asText());
+        assertEquals("first step", json.get("instructions").get(0).asText());
+        assertEquals("glutenfree", json.get("diets").get(0).asText());
+    }
+
+    @Test
+    void currentFlagsReplaceCachedOnes() throws Exception {
+        JsonNode json = get(1, flags(false, true, false, null));
+
+        assertTrue(json.get("date").isNull());
+        assertEquals(false, json.get("favourite").asBoolean());
+        assertEquals(true, json.get("doLater").asBoolean());
+        assertEquals(false, json.get("finished").asBoolean());
+
+        json = get(1, flags(true, false, true, DATE.plusDays(1)));
+
+        assertEquals("2022-12-13", json.get("date").asText());
+        assertEquals(true, json.get("favourite").asBoolean());
+        assertEquals(true, json.get("finished").asBoolean());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidatedRecipeIsReadAgain() throws Exception {
+        get(1, flags(false, false, false, null));
+        get(2, flags(false, false, false, null));
+
+        recipeJsonCache.invalidate(1);
+        get(1, flags(false, false, false, null));
+        get(2, flags(false, false, false, null));
+
+        assertEquals(3, loads.get());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.recipe.recipe;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RecipeOwnersTest {
+    private final RecipeRepository recipeRepository = mock(RecipeRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecipeOwners recipeOwners = new RecipeOwners(recipeRepository, meterRegistry, Duration.ofMinutes(1), 100);
+
+    @Test
+    void ownerIsQueriedOnce() {
+        given(recipeRepository.getOwner(1)).willReturn(Optional.of(3));
+
+        assertEquals(3, recipeOwners.owner(1));
+        assertEquals(3, recipeOwners.owner(1));
+
+        verify(recipeRepository, times(1)).getOwner(1);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void missingRecipeIsNotKept() {
+        given(recipeRepository.getOwner(1)).willReturn(Optional.empty());
+        assertNull(recipeOwners.owner(1));
+
+        given(recipeRepository.getOwner(1)).willReturn(Optional.of(3));
+        assertEquals(3, recipeOwners.owner(1));
+    }
+
+    @Test
+    void ownerIsDroppedAgainAfterCommit() {
+        given(recipeRepository.getOwner(1)).willReturn(Optional.of(3));
+        recipeOwners.owner(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            recipeOwners.invalidate(1);
+            recipeOwners.owner(1);
+            given(recipeRepository.getOwner(1)).willReturn(Optional.of(4));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(4, recipeOwners.owner(1));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(recipeRepository, times(3)).getOwner(1);
+    }
+}
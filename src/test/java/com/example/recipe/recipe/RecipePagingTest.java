@@ -0,0 +1,103 @@
+package com.example.recipe.recipe;
+
+import com.example.recipe.RecipeApplication;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a page of a recipe list is one query, with the next page known from the extra row,
+ * and that the cursor pages go through the list in order.
+ */
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ContextConfiguration(classes = RecipeApplication.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RecipePagingTest {
+    private static final int RECIPES = 7;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("UPDATE recipe SET recipe_favourite = FALSE, recipe_do_later = FALSE");
+        for (int i = 0; i < RECIPES; i++) {
+            jdbcTemplate.update("INSERT INTO recipe (recipe_id, recipe_title, recipe_description, recipe_do_later, recipe_favourite, recipe_finished, recipe_health_score, recipe_image, recipe_servings, recipe_time, recipe_account) "
+                    + "VALUES (?, 'paged', 'desc', TRUE, TRUE, FALSE, 1, 'img', 1, 1, 1)", 100 + i);
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void favouritePageIsOneQuery() {
+        Slice<ListRecipeRes> first = recipeRepository.getFavourite(1, PageRequest.of(0, 5));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(5, first.getContent().size());
+        assertTrue(first.hasNext());
+
+        Slice<ListRecipeRes> last = recipeRepository.getFavourite(1, PageRequest.of(1, 5));
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(2, last.getContent().size());
+        assertFalse(last.hasNext());
+    }
+
+    @Test
+    void favouriteCursorWalksAllRecipesInOrder() {
+        List<Integer> ids = new ArrayList<>();
+        int afterId = 0;
+        int pages = 0;
+        Slice<ListRecipeRes> page;
+        do {
+            page = recipeRepository.getFavouriteAfter(1, afterId, PageRequest.of(0, 3));
+            pages++;
+            for (ListRecipeRes recipe : page.getContent()) ids.add(recipe.getId());
+            afterId = ids.get(ids.size() - 1);
+        } while (page.hasNext());
+
+        assertEquals(List.of(100, 101, 102, 103, 104, 105, 106), ids);
+        assertEquals(3, pages);
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listIndexesExist() {
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.indexes WHERE index_name IN ('recipe_account_favourite', 'recipe_account_do_later', 'recipe_account_to_do_date')",
+                Integer.class));
+    }
+
+    @Test
+    void doLaterPageIsOneQuery() {
+        Slice<ListRecipeRes> first = recipeRepository.getDoLater(1, PageRequest.of(0, RECIPES));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(RECIPES, first.getContent().size());
+        assertFalse(first.hasNext());
+    }
+}
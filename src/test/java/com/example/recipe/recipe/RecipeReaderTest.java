@@ -0,0 +1,226 @@
+package com.example.recipe.recipe;
+
+import com.example.recipe.RecipeApplication;
+import com.example.recipe.response.Converters;
+import com.example.recipe.response.FullRecipeRes;
+import com.example.recipe.response.MeasurementRes;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that RecipeReader reads the whole recipe with two statements and without Hibernate,
+ * gives the same recipe as the entities through Converters,
+ * and logs the time and allocation of both for a recipe with 30 ingredients.
+ * H2 runs in the test thread, so its own allocation is counted for both.
+ */
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ContextConfiguration(classes = RecipeApplication.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RecipeReaderTest {
+    private static final Logger log = LoggerFactory.getLogger(RecipeReaderTest.class);
+    private static final int INGREDIENTS = 30;
+    private static final int ROUNDS = 200;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final AtomicInteger readerStatements = new AtomicInteger();
+    private final Converters converter = new Converters();
+    private RecipeReader recipeReader;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO unit (unit_id, unit_name) VALUES (50, 'second unit')");
+        for (int i = 0; i < INGREDIENTS; i++) {
+            jdbcTemplate.update("INSERT INTO measurement (measurement_amount, measurement_ingredient, measurement_unit, recipe_id) VALUES (?, 1, 50, 1)", i + 1);
+        }
+        jdbcTemplate.update("INSERT INTO measurement (measurement_amount, measurement_ingredient, measurement_unit, recipe_id) VALUES (5, NULL, NULL, 1)");
+        jdbcTemplate.update("INSERT INTO instruction (instruction_body, recipe_id) VALUES ('second step', 1)");
+        jdbcTemplate.update("INSERT INTO recipe_country_mapping (recipe_country, country_id) VALUES (1, 2)");
+        recipeReader = new RecipeReader(new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+                readerStatements.incrementAndGet();
+                return super.query(sql, rowMapper, args);
+            }
+
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) {
+                readerStatements.incrementAndGet();
+                super.query(sql, rch, args);
+            }
+        });
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private FullRecipeRes converted(int recipeId) {
+        FullRecipeRes res = converter.fullRecipeConverter(recipeRepository.findById(recipeId).orElseThrow());
+        entityManager.clear();
+        return res;
+    }
+
+    private static void assertSameRecipe(FullRecipeRes expected, FullRecipeRes actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getImage(), actual.getImage());
+        assertEquals(expected.getServings(), actual.getServings());
+        assertEquals(expected.getReadyInMinutes(), actual.getReadyInMinutes());
+        assertEquals(expected.getSourceUrl(), actual.getSourceUrl());
+        assertEquals(expected.getSummary(), actual.getSummary());
+        assertEquals(expected.getHealthScore(), actual.getHealthScore());
+        assertEquals(expected.getAccount(), actual.getAccount());
+        assertEquals(expected.isFavourite(), actual.isFavourite());
+        assertEquals(expected.isDoLater(), actual.isDoLater());
+        assertEquals(expected.isFinished(), actual.isFinished());
+        assertEquals(expected.getDate(), actual.getDate());
+        assertEquals(expected.getInstructions(), actual.getInstructions());
+        assertEquals(sorted(expected.getDishTypes()), sorted(actual.getDishTypes()));
+        assertEquals(sorted(expected.getCuisines()), sorted(actual.getCuisines()));
+        assertEquals(sorted(expected.getDiets()), sorted(actual.getDiets()));
+        assertEquals(measurements(expected), measurements(actual));
+    }
+
+    private static List<String> sorted(List<String> names) {
+        return names.stream().sorted().toList();
+    }
+
+    private static List<String> measurements(FullRecipeRes recipe) {
+        return recipe.getMeasurements().stream().map(RecipeReaderTest::measurement).toList();
+    }
+
+    private static String measurement(MeasurementRes measurement) {
+        return measurement.getAmount()
+                + " " + (measurement.getName() == null ? null : measurement.getName().getId() + " " + measurement.getName().getName())
+                + " " + (measurement.getUnit() == null ? null : measurement.getUnit().getId() + " " + measurement.getUnit().getName());
+    }
+
+    private static void assertSeedRecipe(FullRecipeRes res) {
+        assertEquals(1, res.getId());
+        assertEquals("test title", res.getTitle());
+        assertEquals("test image", res.getImage());
+        assertEquals(2, res.getServings());
+        assertEquals(12, res.getReadyInMinutes());
+        assertEquals("test original", res.getSourceUrl());
+        assertEquals("test desc", res.getSummary());
+        assertEquals(120, res.getHealthScore());
+        assertEquals(1, res.getAccount());
+        assertFalse(res.isFavourite());
+        assertFalse(res.isDoLater());
+        assertFalse(res.isFinished());
+        assertEquals(LocalDate.of(2022, 12, 12), res.getDate());
+        assertEquals(List.of("test instruction", "second step"), res.getInstructions());
+        assertEquals(List.of("test type"), res.getDishTypes());
+        assertEquals(List.of("test country", "test country2"), res.getCuisines().stream().sorted().toList());
+        assertEquals(List.of("test category"), res.getDiets());
+    }
+
+    @Test
+    void readerGivesWholeRecipeWithoutHibernate() {
+        FullRecipeRes res = recipeReader.getRecipe(1).orElseThrow();
+
+        assertSeedRecipe(res);
+        assertEquals(INGREDIENTS + 2, res.getMeasurements().size());
+        assertEquals("12.0 test ingredient test unit", measurement(res, 0));
+        assertEquals("1.0 test ingredient second unit", measurement(res, 1));
+        assertNull(res.getMeasurements().get(INGREDIENTS + 1).getName());
+        assertNull(res.getMeasurements().get(INGREDIENTS + 1).getUnit());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, readerStatements.get());
+    }
+
+    private static String measurement(FullRecipeRes res, int index) {
+        return res.getMeasurements().get(index).getAmount() + " " + res.getMeasurements().get(index).getName().getName()
+                + " " + res.getMeasurements().get(index).getUnit().getName();
+    }
+
+    @Test
+    void readerGivesSameRecipeAsEntities() {
+        FullRecipeRes expected = converted(1);
+
+        assertSameRecipe(expected, recipeReader.getRecipe(1).orElseThrow());
+        assertSameRecipe(expected, recipeReader.getRecipeForDate(1, LocalDate.of(2022, 12, 12)).orElseThrow());
+        assertSameRecipe(converted(2), recipeReader.getRecipe(2).orElseThrow());
+    }
+
+    @Test
+    void readerFindsRecipeForDate() {
+        assertSeedRecipe(recipeReader.getRecipeForDate(1, LocalDate.of(2022, 12, 12)).orElseThrow());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, readerStatements.get());
+
+        assertFalse(recipeReader.getRecipeForDate(1, LocalDate.of(2022, 12, 13)).isPresent());
+        assertFalse(recipeReader.getRecipeForDate(2, LocalDate.of(2022, 12, 12)).isPresent());
+    }
+
+    @Test
+    void readerGivesEmptyWithNoRecipe() {
+        assertFalse(recipeReader.getRecipe(99).isPresent());
+        assertEquals(1, readerStatements.get());
+    }
+
+    @Test
+    void compareReaderWithEntities() {
+        long[] entities = measure(() -> converted(1));
+        long entityStatements = statistics.getPrepareStatementCount();
+        long entityLoads = statistics.getEntityLoadCount();
+        long[] reader = measure(() -> recipeReader.getRecipe(1).orElseThrow());
+
+        log.info("Entities and converter: {} us, {} bytes and {} statements per recipe", entities[0] / 1000, entities[1], entityStatements / (2 * ROUNDS));
+        log.info("RecipeReader: {} us, {} bytes and {} statements per recipe", reader[0] / 1000, reader[1], readerStatements.get() / (2 * ROUNDS));
+        assertEquals(0, statistics.getEntityLoadCount() - entityLoads);
+        assertEquals(entityStatements, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Reads the recipe ROUNDS times after warming up.
+     * @param read
+     *        the read to measure
+     * @return average nanoseconds and allocated bytes per read.
+     */
+    private static long[] measure(Supplier<FullRecipeRes> read) {
+        for (int i = 0; i < ROUNDS; i++) read.get();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) read.get();
+        long nanos = System.nanoTime() - start;
+        return new long[] {nanos / ROUNDS, (threads.getCurrentThreadAllocatedBytes() - bytes) / ROUNDS};
+    }
+}
@@ -68,8 +68,8 @@ class RecipeRepositoryTest {
         testRecipeRepository.save(recipe);
         PageRequest page = PageRequest.of(0, 4);
 
-        List<ListRecipeRes> foundEntity = testRecipeRepository.getFavourite(account.getId(), page);
-        List<ListRecipeRes> foundNoneEntity = testRecipeRepository.getFavourite(0, page);
+        List<ListRecipeRes> foundEntity = testRecipeRepository.getFavourite(account.getId(), page).getContent();
+        List<ListRecipeRes> foundNoneEntity = testRecipeRepository.getFavourite(0, page).getContent();
         assertNotNull(foundEntity);
         assertEquals("test fav", foundEntity.get(0).getTitle());
         assertEquals(1, foundEntity.get(0).getId());
@@ -103,8 +103,8 @@ class RecipeRepositoryTest {
         testRecipeRepository.save(recipe);
         PageRequest page = PageRequest.of(0, 4);
 
-        List<ListRecipeRes> foundEntity = testRecipeRepository.getDoLater(account.getId(), page);
-        List<ListRecipeRes> foundNoneEntity = testRecipeRepository.getDoLater(0, page);
+        List<ListRecipeRes> foundEntity = testRecipeRepository.getDoLater(account.getId(), page).getContent();
+        List<ListRecipeRes> foundNoneEntity = testRecipeRepository.getDoLater(0, page).getContent();
         assertNotNull(foundEntity);
         assertEquals("test doLater", foundEntity.get(0).getTitle());
         assertEquals(1, foundEntity.get(0).getId());
@@ -251,8 +251,8 @@ class RecipeRepositoryTest {
         testRecipeRepository.save(recipe);
         testRecipeRepository.save(recipe2);
 
-        int foundEntity = testRecipeRepository.getDoneCount(account.getId()).orElse(null);
-        int foundNoneEntity = testRecipeRepository.getDoneCount(0).orElse(null);
+        int foundEntity = testRecipeRepository.getCounts(account.getId()).getDone();
+        int foundNoneEntity = testRecipeRepository.getCounts(0).getDone();
         assertEquals(1, foundEntity);
         assertEquals(0, foundNoneEntity);
     }
@@ -304,8 +304,8 @@ class RecipeRepositoryTest {
         testRecipeRepository.save(recipe);
         testRecipeRepository.save(recipe2);
 
-        int foundEntity = testRecipeRepository.getFavouriteCount(account.getId()).orElse(null);
-        int foundNoneEntity = testRecipeRepository.getFavouriteCount(0).orElse(null);
+        int foundEntity = testRecipeRepository.getCounts(account.getId()).getFavourite();
+        int foundNoneEntity = testRecipeRepository.getCounts(0).getFavourite();
         assertEquals(1, foundEntity);
         assertEquals(0, foundNoneEntity);
     }
@@ -357,8 +357,8 @@ class RecipeRepositoryTest {
         testRecipeRepository.save(recipe);
         testRecipeRepository.save(recipe2);
 
-        int foundEntity = testRecipeRepository.getDoLaterCount(account.getId()).orElse(null);
-        int foundNoneEntity = testRecipeRepository.getDoLaterCount(0).orElse(null);
+        int foundEntity = testRecipeRepository.getCounts(account.getId()).getDoLater();
+        int foundNoneEntity = testRecipeRepository.getCounts(0).getDoLater();
         assertEquals(1, foundEntity);
         assertEquals(0, foundNoneEntity);
     }
@@ -396,4 +396,61 @@ class RecipeRepositoryTest {
         assertEquals(1, foundEntity.get(0).getId());
         assertEquals(0, foundNoneEntity.size());
     }
+
+    @Test
+    void updatesOnlyChangeOwnRecipe() {
+        assertEquals(0, testRecipeRepository.toggleFavourite(1, 2));
+        assertEquals(0, testRecipeRepository.finish(3, 1));
+
+        assertEquals(1, testRecipeRepository.toggleFavourite(1, 1));
+        assertEquals(1, testRecipeRepository.toggleDoLater(1, 1));
+        assertEquals(1, testRecipeRepository.finish(1, 1));
+        assertEquals(1, testRecipeRepository.setDate(1, 1, LocalDate.of(2023, 1, 2)));
+
+        Recipe recipe = testRecipeRepository.findById(1).orElseThrow();
+        assertTrue(recipe.getFavourite());
+        assertTrue(recipe.getDoLater());
+        assertTrue(recipe.getFinished());
+        assertEquals(LocalDate.of(2023, 1, 2), recipe.getToDoDate());
+    }
+
+    @Test
+    void bulkUpdateOnlyChangesOwnRecipes() {
+        assertEquals(List.of(1, 2), testRecipeRepository.getOwnIds(1, List.of(1, 2, 3)).stream().sorted().toList());
+        assertEquals(List.of(), testRecipeRepository.getOwnIds(2, List.of(1, 2)));
+
+        assertEquals(0, testRecipeRepository.setFavourite(2, List.of(1, 2), true));
+        assertEquals(1, testRecipeRepository.setFavourite(1, List.of(1, 2), true));
+        assertEquals(1, testRecipeRepository.setFinished(1, List.of(2), false));
+
+        assertTrue(testRecipeRepository.findById(1).orElseThrow().getFavourite());
+        assertFalse(testRecipeRepository.findById(2).orElseThrow().getFinished());
+    }
+
+    @Test
+    void getCalendarWorks() {
+        List<CalendarEntry> calendar = testRecipeRepository.getCalendar(1);
+        assertEquals(1, calendar.size());
+        assertEquals(1, calendar.get(0).getId());
+        assertEquals(LocalDate.of(2022, 12, 12), calendar.get(0).getToDoDate());
+        assertFalse(calendar.get(0).getFinished());
+
+        assertEquals(0, testRecipeRepository.getCalendar(2).size());
+    }
+
+    @Test
+    void getOwnerWorks() {
+        assertEquals(1, testRecipeRepository.getOwner(1).orElseThrow());
+        assertFalse(testRecipeRepository.getOwner(99).isPresent());
+    }
+
+    @Test
+    void getFlagsAndCountryIdsWork() {
+        RecipeFlags flags = testRecipeRepository.getFlags(1).orElseThrow();
+        assertEquals(1, flags.getAccountId());
+        assertFalse(flags.getFavourite());
+        assertEquals(LocalDate.of(2022, 12, 12), flags.getToDoDate());
+        assertEquals(List.of(1), testRecipeRepository.getCountryIds(1));
+        assertFalse(testRecipeRepository.getFlags(99).isPresent());
+    }
 }
@@ -2,7 +2,9 @@ package com.example.recipe.recipe;
 
 import com.example.recipe.RecipeApplication;
 import com.example.recipe.account.Account;
+import com.example.recipe.api.RandomRecipePool;
 import com.example.recipe.apiClasses.*;
+import com.example.recipe.calendar.CalendarIndex;
 import com.example.recipe.category.Category;
 import com.example.recipe.category.CategoryRepository;
 import com.example.recipe.country.Country;
@@ -12,17 +14,27 @@ import com.example.recipe.ingredient.IngredientRepository;
 import com.example.recipe.instructions.Instruction;
 import com.example.recipe.measurement.Measurement;
 import com.example.recipe.measurement.MeasurementRepository;
+import com.example.recipe.response.BulkRes;
 import com.example.recipe.response.FullRecipeRes;
+import com.example.recipe.response.ListRes;
+import com.example.recipe.response.MeasurementRes;
 import com.example.recipe.response.RecipeRes;
 import com.example.recipe.response.StatRes;
 import com.example.recipe.security.JwtService;
+import com.example.recipe.stats.AccountStatsService;
 import com.example.recipe.type.Type;
 import com.example.recipe.type.TypeRepository;
 import com.example.recipe.unit.Unit;
 import com.example.recipe.unit.UnitRepository;
+import com.example.recipe.vocabulary.VocabularyDictionary;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import exceptions.ApiException;
 import exceptions.BadRequestException;
 import exceptions.DatabaseException;
+import exceptions.ForbiddenException;
+import exceptions.UpstreamException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -31,26 +43,44 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.charset.StandardCharsets;
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ActiveProfiles("test")
@@ -85,6 +115,27 @@ class RecipeServiceTest {
     @Mock
     private RecipeUtils recipeUtils;
 
+    @Mock
+    private RandomRecipePool randomRecipePool;
+
+    @Mock
+    private RecipeWriter recipeWriter;
+
+    @Mock
+    private CalendarIndex calendarIndex;
+
+    @Mock
+    private RecipeReader recipeReader;
+
+    @Mock
+    private RecipeJsonCache recipeJsonCache;
+
+    @Mock
+    private RecipeOwners recipeOwners;
+
+    @Mock
+    private AccountStatsService accountStatsService;
+
     @Mock
     private JwtService jwtService;
     @Mock
@@ -95,14 +146,22 @@ class RecipeServiceTest {
     @InjectMocks
     private RecipeService testRecipeService;
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(testRecipeService, "databaseScheduler", Schedulers.immediate());
+        ReflectionTestUtils.setField(testRecipeService, "bulkMaxSize", 3);
+        ReflectionTestUtils.setField(testRecipeService, "vocabularyDictionary", new VocabularyDictionary(
+                ingredientRepository, unitRepository, typeRepository, countryRepository, categoryRepository, mock(JdbcTemplate.class),
+                new SimpleMeterRegistry()));
+    }
+
     @Test
     void addRecipeWorks() {
-        given(unitRepository.findById(any())).willReturn(Optional.of(new Unit()));
-        given(ingredientRepository.findById(any())).willReturn(Optional.of(new Ingredient()));
-        given(typeRepository.findById(any())).willReturn(Optional.of(new Type()));
-        given(countryRepository.findById(any())).willReturn(Optional.of(new Country()));
-        given(categoryRepository.findById(any())).willReturn(Optional.of(new Category()));
-        given(recipeRepository.getByDate(anyInt(), any())).willReturn(Optional.empty());
+        given(unitRepository.findAllById(any())).willReturn(List.of(new Unit(1, "test")));
+        given(ingredientRepository.findAllById(any())).willReturn(List.of(new Ingredient(1, "test")));
+        given(typeRepository.findAllById(any())).willReturn(List.of(new Type(1, "test")));
+        given(countryRepository.findAllById(any())).willReturn(List.of(new Country(1, "test")));
+        given(categoryRepository.findAllById(any())).willReturn(List.of(new Category(1, "test")));
 
         Recipe recipe = new Recipe(
                 1,
@@ -125,13 +184,21 @@ class RecipeServiceTest {
                 List.of(new Measurement(1, new Unit(1, "test"), new Ingredient(1, "test"), 1F))
         );
 
+        List<Measurement> measurements = recipe.getMeasurements();
+        List<Instruction> instructions = recipe.getInstructions();
         testRecipeService.add(recipe);
-        verify(recipeRepository).save(recipe);
+        verify(recipeRepository).saveAndFlush(recipe);
+        verify(recipeWriter).insertMeasurements(1, measurements);
+        verify(recipeWriter).insertInstructions(1, instructions);
+        verify(accountStatsService).recipeAdded(recipe);
+        verify(recipeJsonCache).invalidate(1);
+        verify(recipeOwners).invalidate(1);
+        verify(recipeRepository, never()).getByDate(anyInt(), any());
+        verify(calendarIndex, never()).scheduled(anyInt(), anyInt(), any(), anyBoolean());
     }
 
     @Test
     void addRecipeThrowsWithBadUnit() {
-        given(unitRepository.findById(any())).willReturn(Optional.empty());
         Recipe recipe = new Recipe(
                 1,
                 "test title",
@@ -160,8 +227,7 @@ class RecipeServiceTest {
 
     @Test
     void addRecipeThrowsWithIngredient() {
-        given(ingredientRepository.findById(any())).willReturn(Optional.empty());
-        given(unitRepository.findById(any())).willReturn(Optional.of(new Unit()));
+        given(unitRepository.findAllById(any())).willReturn(List.of(new Unit(1, "test")));
         Recipe recipe = new Recipe(
                 1,
                 "test title",
@@ -190,9 +256,8 @@ class RecipeServiceTest {
 
     @Test
     void addRecipeThrowsWithBadType() {
-        given(typeRepository.findById(any())).willReturn(Optional.empty());
-        given(unitRepository.findById(any())).willReturn(Optional.of(new Unit()));
-        given(ingredientRepository.findById(any())).willReturn(Optional.of(new Ingredient()));
+        given(unitRepository.findAllById(any())).willReturn(List.of(new Unit(1, "test")));
+        given(ingredientRepository.findAllById(any())).willReturn(List.of(new Ingredient(1, "test")));
         Recipe recipe = new Recipe(
                 1,
                 "test title",
@@ -221,10 +286,9 @@ class RecipeServiceTest {
 
     @Test
     void addRecipeThrowsWithBadCountry() {
-        given(countryRepository.findById(any())).willReturn(Optional.empty());
-        given(unitRepository.findById(any())).willReturn(Optional.of(new Unit()));
-        given(ingredientRepository.findById(any())).willReturn(Optional.of(new Ingredient()));
-        given(typeRepository.findById(any())).willReturn(Optional.of(new Type()));
+        given(unitRepository.findAllById(any())).willReturn(List.of(new Unit()));
+        given(ingredientRepository.findAllById(any())).willReturn(List.of(new Ingredient()));
+        given(typeRepository.findAllById(any())).willReturn(List.of(new Type()));
         Recipe recipe = new Recipe(
                 1,
                 "test title",
@@ -253,11 +317,10 @@ class RecipeServiceTest {
 
     @Test
     void addRecipeThrowsWithBadCategory() {
-        given(categoryRepository.findById(any())).willReturn(Optional.empty());
-        given(unitRepository.findById(any())).willReturn(Optional.of(new Unit()));
-        given(typeRepository.findById(any())).willReturn(Optional.of(new Type()));
-        given(countryRepository.findById(any())).willReturn(Optional.of(new Country()));
-        given(ingredientRepository.findById(any())).willReturn(Optional.of(new Ingredient()));
+        given(unitRepository.findAllById(any())).willReturn(List.of(new Unit()));
+        given(typeRepository.findAllById(any())).willReturn(List.of(new Type()));
+        given(countryRepository.findAllById(any())).willReturn(List.of(new Country()));
+        given(ingredientRepository.findAllById(any())).willReturn(List.of(new Ingredient()));
         Recipe recipe = new Recipe(
                 1,
                 "test title",
@@ -284,14 +347,46 @@ class RecipeServiceTest {
                 .hasMessageContaining("category not in database");
     }
 
+    @Test
+    void addRecipeReportsAllMissingReferences() {
+        given(unitRepository.findAllById(any())).willReturn(List.of(new Unit(1, "test")));
+        given(ingredientRepository.findAllById(any())).willReturn(List.of(new Ingredient(1, "test")));
+        given(typeRepository.findAllById(any())).willReturn(List.of(new Type(1, "test")));
+        Recipe recipe = new Recipe(
+                1,
+                "test title",
+                "test desc",
+                "test original",
+                12,
+                2,
+                "test image",
+                120,
+                false,
+                false,
+                false,
+                null,
+                List.of(new Instruction("test instructions")),
+                List.of(new Category(4, "test")),
+                List.of(new Type(1, "test")),
+                new Account(),
+                List.of(new Country(2, "test"), new Country(3, "test")),
+                List.of(new Measurement(1, new Unit(1, "test"), new Ingredient(1, "test"), 12),
+                        new Measurement(2, new Unit(1, "test"), new Ingredient(5, "test"), 12))
+        );
+
+        assertThatThrownBy(() -> testRecipeService.add(recipe))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("ingredient not in database [5], country not in database [2, 3], category not in database [4]");
+        verify(recipeRepository, never()).saveAndFlush(any());
+    }
+
     @Test
     void addRecipeThrowsWithBadDate() {
-        given(categoryRepository.findById(any())).willReturn(Optional.empty());
-        given(unitRepository.findById(any())).willReturn(Optional.of(new Unit()));
-        given(typeRepository.findById(any())).willReturn(Optional.of(new Type()));
-        given(countryRepository.findById(any())).willReturn(Optional.of(new Country()));
-        given(ingredientRepository.findById(any())).willReturn(Optional.of(new Ingredient()));
-        given(categoryRepository.findById(any())).willReturn(Optional.of(new Category()));
+        given(unitRepository.findAllById(any())).willReturn(List.of(new Unit()));
+        given(typeRepository.findAllById(any())).willReturn(List.of(new Type()));
+        given(countryRepository.findAllById(any())).willReturn(List.of(new Country()));
+        given(ingredientRepository.findAllById(any())).willReturn(List.of(new Ingredient()));
+        given(categoryRepository.findAllById(any())).willReturn(List.of(new Category()));
         given(recipeRepository.getByDate(anyInt(), any())).willReturn(Optional.of(new Recipe()));
         Recipe recipe = new Recipe(
                 1,
@@ -305,7 +400,7 @@ class RecipeServiceTest {
                 false,
                 false,
                 false,
-                null,
+                LocalDate.of(2022, 12, 12),
                 List.of(new Instruction("test instructions")),
                 List.of(new Category()),
                 List.of(new Type()),
@@ -321,12 +416,12 @@ class RecipeServiceTest {
 
     @Test
     void addRecipeThrowsWithErrorWhileSaving() {
-        given(categoryRepository.findById(any())).willReturn(Optional.of(new Category()));
-        given(unitRepository.findById(any())).willReturn(Optional.of(new Unit()));
-        given(typeRepository.findById(any())).willReturn(Optional.of(new Type()));
-        given(countryRepository.findById(any())).willReturn(Optional.of(new Country()));
-        given(ingredientRepository.findById(any())).willReturn(Optional.of(new Ingredient()));
-        doThrow(new RuntimeException()).when(recipeRepository).save(any());
+        given(categoryRepository.findAllById(any())).willReturn(List.of(new Category()));
+        given(unitRepository.findAllById(any())).willReturn(List.of(new Unit()));
+        given(typeRepository.findAllById(any())).willReturn(List.of(new Type()));
+        given(countryRepository.findAllById(any())).willReturn(List.of(new Country()));
+        given(ingredientRepository.findAllById(any())).willReturn(List.of(new Ingredient()));
+        doThrow(new RuntimeException()).when(recipeRepository).saveAndFlush(any());
         Recipe recipe = new Recipe(
                 1,
                 "test title",
@@ -355,145 +450,207 @@ class RecipeServiceTest {
 
     @Test
     void toggleFavouriteWorks() {
-        Recipe recipe = new Recipe();
-        recipe.setFavourite(true);
-        given(recipeRepository.findById(any())).willReturn(Optional.of(recipe));
+        given(recipeRepository.toggleFavourite(1, 2)).willReturn(1);
 
-        testRecipeService.toggleFavourite( 1);
-        recipe.setFavourite(false);
-        verify(recipeRepository).save(recipe);
+        assertEquals(true, testRecipeService.toggleFavourite(1, 2));
+        verify(recipeRepository).toggleFavourite(1, 2);
+        verify(accountStatsService).favouriteToggled(1, 2);
     }
 
     @Test
-    void toggleFavouriteThrowsWithNoRecipe() {
-        given(recipeRepository.findById(any())).willReturn(Optional.empty());
+    void toggleFavouriteThrowsWithNotOwnRecipe() {
+        given(recipeRepository.toggleFavourite(1, 2)).willReturn(0);
 
-        assertThatThrownBy(() -> testRecipeService.toggleFavourite(1))
-                .isInstanceOf(BadRequestException.class)
-                .hasMessageContaining("no recipe with id");
+        assertThatThrownBy(() -> testRecipeService.toggleFavourite(1, 2))
+                .isInstanceOf(ForbiddenException.class)
+                .hasMessageContaining("no own recipe with id");
+        verify(accountStatsService, never()).favouriteToggled(anyInt(), anyInt());
     }
 
     @Test
     void toggleFavouriteThrowsWithErrorWhileSaving() {
-        Recipe recipe = new Recipe();
-        recipe.setFavourite(true);
-        given(recipeRepository.findById(any())).willReturn(Optional.of(recipe));
-        doThrow(new RuntimeException()).when(recipeRepository).save(any());
+        given(recipeRepository.toggleFavourite(1, 2)).willThrow(new RuntimeException());
 
-        assertThatThrownBy(() -> testRecipeService.toggleFavourite(1))
+        assertThatThrownBy(() -> testRecipeService.toggleFavourite(1, 2))
                 .isInstanceOf(DatabaseException.class)
                 .hasMessageContaining("error while saving to database");
     }
 
     @Test
     void doLaterRecipeWorks() {
-        Recipe recipe = new Recipe();
-        recipe.setDoLater(true);
-        given(recipeRepository.findById(any())).willReturn(Optional.of(recipe));
-
-        testRecipeService.toggleDoLater( 1);
-        recipe.setDoLater(false);
-        verify(recipeRepository).save(recipe);
+        given(recipeRepository.toggleDoLater(1, 2)).willReturn(1);
 
+        assertEquals(true, testRecipeService.toggleDoLater(1, 2));
+        verify(recipeRepository).toggleDoLater(1, 2);
+        verify(accountStatsService).doLaterToggled(1, 2);
     }
+
     @Test
-    void toggleDoLaterThrowsWithNoRecipe() {
-        given(recipeRepository.findById(any())).willReturn(Optional.empty());
+    void toggleDoLaterThrowsWithNotOwnRecipe() {
+        given(recipeRepository.toggleDoLater(1, 2)).willReturn(0);
 
-        assertThatThrownBy(() -> testRecipeService.toggleDoLater(1))
-                .isInstanceOf(BadRequestException.class)
-                .hasMessageContaining("no recipe with id");
+        assertThatThrownBy(() -> testRecipeService.toggleDoLater(1, 2))
+                .isInstanceOf(ForbiddenException.class)
+                .hasMessageContaining("no own recipe with id");
     }
 
     @Test
     void toggleDoLaterThrowsWithErrorWhileSaving() {
-        Recipe recipe = new Recipe();
-        recipe.setDoLater(true);
-        given(recipeRepository.findById(any())).willReturn(Optional.of(recipe));
-        doThrow(new RuntimeException()).when(recipeRepository).save(any());
+        given(recipeRepository.toggleDoLater(1, 2)).willThrow(new RuntimeException());
 
-        assertThatThrownBy(() -> testRecipeService.toggleDoLater(1))
+        assertThatThrownBy(() -> testRecipeService.toggleDoLater(1, 2))
                 .isInstanceOf(DatabaseException.class)
                 .hasMessageContaining("error while saving to database");
     }
 
     @Test
     void setDateRecipeWorks() {
-        Recipe recipe = new Recipe();
-        given(recipeRepository.findById(any())).willReturn(Optional.of(recipe));
-
-        testRecipeService.setDate( 1, LocalDate.of(2022,12,12));
-        recipe.setToDoDate(LocalDate.of(2022,12,12));
-        verify(recipeRepository).save(recipe);
+        given(recipeRepository.setDate(1, 2, LocalDate.of(2022, 12, 12))).willReturn(1);
 
+        assertEquals(true, testRecipeService.setDate(1, 2, LocalDate.of(2022, 12, 12)));
+        verify(recipeRepository).setDate(1, 2, LocalDate.of(2022, 12, 12));
+        verify(calendarIndex).moved(2, 1, LocalDate.of(2022, 12, 12));
     }
+
     @Test
-    void setDateThrowsWithNoRecipe() {
-        given(recipeRepository.findById(any())).willReturn(Optional.empty());
+    void setDateThrowsWithNotOwnRecipe() {
+        given(recipeRepository.setDate(1, 2, LocalDate.of(2022, 12, 12))).willReturn(0);
 
-        assertThatThrownBy(() -> testRecipeService.setDate(1, LocalDate.of(2022, 12,12)))
-                .isInstanceOf(BadRequestException.class)
-                .hasMessageContaining("no recipe with id");
+        assertThatThrownBy(() -> testRecipeService.setDate(1, 2, LocalDate.of(2022, 12, 12)))
+                .isInstanceOf(ForbiddenException.class)
+                .hasMessageContaining("no own recipe with id");
+        verify(calendarIndex, never()).moved(anyInt(), anyInt(), any());
     }
 
     @Test
     void setDateThrowsWithErrorWhileSaving() {
-        Recipe recipe = new Recipe();
-        given(recipeRepository.findById(any())).willReturn(Optional.of(recipe));
-        doThrow(new RuntimeException()).when(recipeRepository).save(any());
+        given(recipeRepository.setDate(1, 2, LocalDate.of(2022, 12, 12))).willThrow(new RuntimeException());
 
-        assertThatThrownBy(() -> testRecipeService.setDate(1, LocalDate.of(2022, 12, 12)))
+        assertThatThrownBy(() -> testRecipeService.setDate(1, 2, LocalDate.of(2022, 12, 12)))
                 .isInstanceOf(DatabaseException.class)
                 .hasMessageContaining("error while saving to database");
     }
 
     @Test
     void finishRecipeWorks() {
-        Recipe recipe = new Recipe();
-        recipe.setFinished(false);
-        given(recipeRepository.findById(any())).willReturn(Optional.of(recipe));
+        given(recipeRepository.finish(1, 2)).willReturn(1);
+
+        assertEquals(true, testRecipeService.finishRecipe(1, 2));
+        verify(recipeRepository).finish(1, 2);
+        verify(accountStatsService).flagsChanged(2, 1, 0, 0);
+        verify(calendarIndex).finished(2, List.of(1), true);
+    }
 
-        testRecipeService.finishRecipe(1);
-        recipe.setFinished(true);
+    @Test
+    void finishRecipeDoesNotCountFinishedRecipeAgain() {
+        given(recipeRepository.finish(1, 2)).willReturn(0);
+        given(recipeRepository.getOwnIds(2, List.of(1))).willReturn(List.of(1));
 
-        verify(recipeRepository).save(recipe);
+        assertEquals(true, testRecipeService.finishRecipe(1, 2));
+        verify(accountStatsService, never()).flagsChanged(anyInt(), anyInt(), anyInt(), anyInt());
     }
 
     @Test
-    void finishRecipeThrowsWithNoRecipe() {
-        given(recipeRepository.findById(any())).willReturn(Optional.empty());
+    void finishRecipeThrowsWithNotOwnRecipe() {
+        given(recipeRepository.finish(1, 2)).willReturn(0);
 
-        assertThatThrownBy(() -> testRecipeService.finishRecipe(1))
-                .isInstanceOf(BadRequestException.class)
-                .hasMessageContaining("no recipe with id");
+        assertThatThrownBy(() -> testRecipeService.finishRecipe(1, 2))
+                .isInstanceOf(ForbiddenException.class)
+                .hasMessageContaining("no own recipe with id");
     }
 
     @Test
     void finishRecipeThrowsWithErrorWhileSaving() {
-        given(recipeRepository.findById(any())).willReturn(Optional.of(new Recipe()));
-        doThrow(new RuntimeException("error")).when(recipeRepository).save(any());
+        given(recipeRepository.finish(1, 2)).willThrow(new RuntimeException("error"));
 
-        assertThatThrownBy(() -> testRecipeService.finishRecipe(1))
+        assertThatThrownBy(() -> testRecipeService.finishRecipe(1, 2))
                 .isInstanceOf(DatabaseException.class)
                 .hasMessageContaining("error while saving to database");
     }
 
+    @Test
+    void bulkUpdateReportsOutcomePerId() {
+        given(recipeRepository.getOwnIds(2, Set.of(1, 3, 4))).willReturn(List.of(1, 4));
+        given(recipeRepository.setDoLater(2, Set.of(1, 4), true)).willReturn(1);
+
+        BulkRes res = testRecipeService.bulkUpdate(new BulkUpdate(List.of(1, 3, 4, 1), BulkUpdate.Operation.DO_LATER, true), 2);
+
+        assertEquals(Map.of(1, BulkRes.Outcome.UPDATED, 3, BulkRes.Outcome.FORBIDDEN, 4, BulkRes.Outcome.UPDATED), res.getResults());
+        verify(recipeRepository).setDoLater(2, Set.of(1, 4), true);
+        verify(accountStatsService).flagsChanged(2, 0, 0, 1);
+    }
+
+    @Test
+    void bulkUpdateFinishedUpdatesCalendar() {
+        given(recipeRepository.getOwnIds(2, Set.of(1, 4))).willReturn(List.of(1, 4));
+        given(recipeRepository.setFinished(2, Set.of(1, 4), true)).willReturn(2);
+
+        testRecipeService.bulkUpdate(new BulkUpdate(List.of(1, 4), BulkUpdate.Operation.FINISHED, true), 2);
+
+        verify(accountStatsService).flagsChanged(2, 2, 0, 0);
+        verify(calendarIndex).finished(2, Set.of(1, 4), true);
+    }
+
+    @Test
+    void bulkUpdateDoesNotUpdateWithNoOwnRecipes() {
+        given(recipeRepository.getOwnIds(2, Set.of(5))).willReturn(List.of());
+
+        BulkRes res = testRecipeService.bulkUpdate(new BulkUpdate(List.of(5), BulkUpdate.Operation.FAVOURITE, true), 2);
+
+        assertEquals(Map.of(5, BulkRes.Outcome.FORBIDDEN), res.getResults());
+        verify(recipeRepository, never()).setFavourite(anyInt(), any(), anyBoolean());
+    }
+
+    @Test
+    void bulkUpdateThrowsWithTooManyIds() {
+        assertThatThrownBy(() -> testRecipeService.bulkUpdate(new BulkUpdate(List.of(1, 2, 3, 4), BulkUpdate.Operation.FINISHED, true), 2))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("too many recipe ids, max 3");
+        verify(recipeRepository, never()).getOwnIds(anyInt(), any());
+    }
+
+    @Test
+    void bulkUpdateThrowsWithNoIds() {
+        assertThatThrownBy(() -> testRecipeService.bulkUpdate(new BulkUpdate(List.of(), BulkUpdate.Operation.FINISHED, true), 2))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("no recipe ids");
+    }
+
     @Test
     void searchRecipeWorks() {
         given(recipeUtils.searchResults(any(), any(), any(), any(), any(), any(), any(), any(), anyInt()))
-                .willReturn(new RecipeResponse(List.of(new ShortRecipe())));
+                .willReturn(Mono.just(new RecipeResponse(List.of(new ShortRecipe()))));
 
-        testRecipeService.getSearch("search", List.of("pork"), List.of("asian"), List.of("vegan"), List.of("dairy"), "main course", "time", "asc", 0);
+        testRecipeService.getSearch("search", List.of("pork"), List.of("asian"), List.of("vegan"), List.of("dairy"), "main course", "time", "asc", 0).block();
 
         verify(recipeUtils).searchResults("search", "pork", "asian", "vegan", "dairy", "main course", "time", "asc", 0);
     }
 
+    @Test
+    void searchRecipeHasNextPageFromTotalResults() {
+        List<ShortRecipe> page = new ArrayList<>();
+        for (int i = 0; i < 12; i++) page.add(new ShortRecipe());
+        given(recipeUtils.searchResults(any(), any(), any(), any(), any(), any(), any(), any(), anyInt()))
+                .willReturn(Mono.just(new RecipeResponse(page, 36)));
+
+        assertEquals(true, testRecipeService.getSearch("search", List.of(), List.of(), List.of(), List.of(), "", "", "", 1).block().getNextPage());
+        assertEquals(false, testRecipeService.getSearch("search", List.of(), List.of(), List.of(), List.of(), "", "", "", 2).block().getNextPage());
+    }
+
+    @Test
+    void searchRecipeHasNoNextPageWithPartialPage() {
+        given(recipeUtils.searchResults(any(), any(), any(), any(), any(), any(), any(), any(), anyInt()))
+                .willReturn(Mono.just(new RecipeResponse(List.of(new ShortRecipe()))));
+
+        assertEquals(false, testRecipeService.getSearch("search", List.of(), List.of(), List.of(), List.of(), "", "", "", 0).block().getNextPage());
+    }
+
     @Test
     void searchRecipe402errorWorks() {
         given(recipeUtils.searchResults(any(), any(), any(), any(), any(), any(), any(), any(), anyInt()))
-                .willThrow(new RuntimeException("402 error"));
+                .willReturn(Mono.error(new UpstreamException(UpstreamException.Kind.QUOTA_EXHAUSTED, "402 error")));
 
-        assertThatThrownBy(() -> testRecipeService.getSearch("search", List.of("pork"), List.of("asian"), List.of("vegan"), List.of("dairy"), "main course", "time", "asc", 0))
+        assertThatThrownBy(() -> testRecipeService.getSearch("search", List.of("pork"), List.of("asian"), List.of("vegan"), List.of("dairy"), "main course", "time", "asc", 0).block())
                 .isInstanceOf(ApiException.class)
                 .hasMessageContaining("API limit reached");
     }
@@ -501,9 +658,9 @@ class RecipeServiceTest {
     @Test
     void searchRecipe502errorWorks() {
         given(recipeUtils.searchResults(any(), any(), any(), any(), any(), any(), any(), any(), anyInt()))
-                .willThrow(new RuntimeException("502 error"));
+                .willReturn(Mono.error(new UpstreamException(UpstreamException.Kind.SERVER_ERROR, "502 error")));
 
-        assertThatThrownBy(() -> testRecipeService.getSearch("search", List.of("pork"), List.of("asian"), List.of("vegan"), List.of("dairy"), "main course", "time", "asc", 0))
+        assertThatThrownBy(() -> testRecipeService.getSearch("search", List.of("pork"), List.of("asian"), List.of("vegan"), List.of("dairy"), "main course", "time", "asc", 0).block())
                 .isInstanceOf(BadRequestException.class)
                 .hasMessageContaining("API error");
     }
@@ -560,11 +717,14 @@ class RecipeServiceTest {
     @Test
     void getRecipeFromAPIWorks() {
         given(recipeRepository.findById(anyInt())).willReturn(Optional.empty());
-        given(typeRepository.getTypeByName(any())).willReturn(Optional.of(new Type("lunch")));
-        given(categoryRepository.getCategoryByName(any())).willReturn(Optional.of(new Category("vegan")));
-        given(ingredientRepository.getIngredientByName(any())).willReturn(Optional.of(new Ingredient("test ingredient")));
+        given(typeRepository.findAll()).willReturn(List.of(new Type("Main Course")));
+        given(categoryRepository.findAll()).willReturn(List.of(new Category("vegan"), new Category("nutfree"), new Category("pescatarian"),
+                new Category("dairyfree"), new Category("vegetarian"), new Category("glutenfree")));
+        given(ingredientRepository.findAll()).willReturn(List.of(new Ingredient("test name")));
+        given(unitRepository.getUnitsByNames(any())).willReturn(List.of(new Unit("tbsp")));
+        given(countryRepository.getCountriesByNames(any())).willReturn(List.of(new Country("indian")));
         given(recipeUtils.getRecipeById(anyInt()))
-                .willReturn(new RecipeFormat(
+                .willReturn(Mono.just(new RecipeFormat(
                         1,
                         "title",
                         "image src",
@@ -582,32 +742,84 @@ class RecipeServiceTest {
                         List.of("indian"),
                         List.of("vegan", "nutfree", "pescatarian"),
                         List.of(new RecipeIngredients("test name", new Measures(new Metric(2, "tbsp"))))
-                ));
+                )));
 
-        RecipeRes res = testRecipeService.getSearchById(1);
+        RecipeRes res = testRecipeService.getSearchById(1).block();
 
-        assertEquals("vegan", res.getDiets().get(0).getName());
-        assertEquals("test ingredient", res.getMeasurements().get(0).getName().getName());
+        assertEquals("nutfree", res.getDiets().get(0).getName());
+        assertEquals(6, res.getDiets().size());
+        assertEquals("Main Course", res.getDishTypes().get(0).getName());
+        assertEquals("indian", res.getCuisines().get(0).getName());
+        assertEquals("test name", res.getMeasurements().get(0).getName().getName());
+        assertEquals("tbsp", res.getMeasurements().get(0).getUnit().getName());
         assertEquals(2, res.getMeasurements().get(0).getAmount());
+        verify(ingredientRepository, never()).getIngredientsByNames(any());
         verify(recipeUtils).getRecipeById(1);
     }
 
+    private static RecipeFormat apiRecipe(List<RecipeIngredients> ingredients) {
+        return new RecipeFormat(1, "title", "image src", 2, 12, "source", "instructions", "summary", 12,
+                false, false, false, false, List.of(), List.of(), List.of(), ingredients);
+    }
+
+    @Test
+    void getRecipeFromAPIKeepsEmptyUnit() {
+        given(recipeRepository.findById(anyInt())).willReturn(Optional.empty());
+        given(ingredientRepository.findAll()).willReturn(List.of(new Ingredient(1, "egg")));
+        given(unitRepository.getUnitsByNames(any())).willAnswer(invocation -> {
+            Collection<String> names = invocation.getArgument(0);
+            return names.stream().map(name -> new Unit(7, name)).toList();
+        });
+        given(recipeUtils.getRecipeById(anyInt()))
+                .willReturn(Mono.just(apiRecipe(List.of(new RecipeIngredients("egg", new Measures(new Metric(2, "")))))));
+
+        RecipeRes res = testRecipeService.getSearchById(1).block();
+
+        assertEquals(7, res.getMeasurements().get(0).getUnit().getId());
+        assertEquals("", res.getMeasurements().get(0).getUnit().getName());
+        verify(unitRepository).getUnitsByNames(argThat(names -> List.copyOf(names).equals(List.of(""))));
+    }
+
+    @Test
+    void getRecipeFromAPITrimsNames() {
+        given(recipeRepository.findById(anyInt())).willReturn(Optional.empty());
+        given(ingredientRepository.findAll()).willReturn(List.of(new Ingredient(1, "egg")));
+        given(unitRepository.findAll()).willReturn(List.of(new Unit(2, "tbsp")));
+        given(ingredientRepository.getIngredientsByNames(any())).willAnswer(invocation -> {
+            Collection<String> names = invocation.getArgument(0);
+            return names.stream().map(name -> new Ingredient(8, name)).toList();
+        });
+        given(recipeUtils.getRecipeById(anyInt()))
+                .willReturn(Mono.just(apiRecipe(List.of(
+                        new RecipeIngredients(" egg ", new Measures(new Metric(2, " tbsp"))),
+                        new RecipeIngredients(" olive oil ", new Measures(new Metric(1, "tbsp")))))));
+
+        RecipeRes res = testRecipeService.getSearchById(1).block();
+
+        assertEquals(1, res.getMeasurements().get(0).getName().getId());
+        assertEquals(2, res.getMeasurements().get(0).getUnit().getId());
+        assertEquals(8, res.getMeasurements().get(1).getName().getId());
+        assertEquals("olive oil", res.getMeasurements().get(1).getName().getName());
+        verify(ingredientRepository).getIngredientsByNames(argThat(names -> List.copyOf(names).equals(List.of("olive oil"))));
+        verify(unitRepository, never()).getUnitsByNames(any());
+    }
+
     @Test
     void getRecipeFromAPI402ErrorWorks() {
-        given(recipeUtils.getRecipeById(anyInt())).willThrow(new RuntimeException("402 error"));
+        given(recipeUtils.getRecipeById(anyInt())).willReturn(Mono.error(new UpstreamException(UpstreamException.Kind.QUOTA_EXHAUSTED, "402 error")));
         given(recipeRepository.findById(anyInt())).willReturn(Optional.empty());
 
-        assertThatThrownBy(() -> testRecipeService.getSearchById(1))
+        assertThatThrownBy(() -> testRecipeService.getSearchById(1).block())
                 .isInstanceOf(ApiException.class)
                 .hasMessageContaining("API limit reached");
     }
 
     @Test
     void getRecipeFromAPI502ErrorWorks() {
-        given(recipeUtils.getRecipeById(anyInt())).willThrow(new RuntimeException("502 error"));
+        given(recipeUtils.getRecipeById(anyInt())).willReturn(Mono.error(new UpstreamException(UpstreamException.Kind.SERVER_ERROR, "502 error")));
         given(recipeRepository.findById(anyInt())).willReturn(Optional.empty());
 
-        assertThatThrownBy(() -> testRecipeService.getSearchById(1))
+        assertThatThrownBy(() -> testRecipeService.getSearchById(1).block())
                 .isInstanceOf(BadRequestException.class)
                 .hasMessageContaining("API error");
     }
@@ -616,7 +828,7 @@ class RecipeServiceTest {
     void getRecipeFromAPIReturnsNullIfInDb() {
         given(recipeRepository.findById(anyInt())).willReturn(Optional.of(new Recipe()));
 
-        RecipeRes res = testRecipeService.getSearchById(1);
+        RecipeRes res = testRecipeService.getSearchById(1).block();
 
         assertEquals(null, res);
     }
@@ -636,10 +848,7 @@ class RecipeServiceTest {
             }
         });
 
-        given(recipeRepository.getStats(anyInt())).willReturn(list);
-        given(recipeRepository.getDoneCount(anyInt())).willReturn(Optional.of(12));
-        given(recipeRepository.getFavouriteCount(anyInt())).willReturn(Optional.of(2));
-        given(recipeRepository.getDoLaterCount(anyInt())).willReturn(Optional.of(4));
+        given(accountStatsService.getStats(1)).willReturn(new RecipeStats(list, 12, 2, 4));
 
         RecipeStats res = testRecipeService.getStats(1);
 
@@ -650,93 +859,51 @@ class RecipeServiceTest {
     }
 
     @Test
-    void getStatsForAccountThrowsWithNoDoneCount() {
-        List<StatRes> list = new ArrayList<>();
-        list.add(new StatRes() {
+    void getFavouriteForAccountWorks() {
+        given(recipeRepository.getFavourite(anyInt(), any())).willReturn(new SliceImpl<>(List.of(new ListRecipeRes() {
             @Override
-            public String getName() {
+            public String getTitle() {
                 return "test";
             }
 
             @Override
-            public int getCount() {
-                return 12;
+            public int getId() {
+                return 1;
             }
-        });
+        }), PageRequest.of(0, 5), true));
+        ListRes res = testRecipeService.getFavourite(1, 0);
 
-        given(recipeRepository.getStats(anyInt())).willReturn(list);
-        given(recipeRepository.getDoneCount(anyInt())).willReturn(Optional.empty());
-
-        assertThatThrownBy(() -> testRecipeService.getStats(1))
-                .isInstanceOf(BadRequestException.class)
-                .hasMessageContaining("error while getting done count from database");
+        assertEquals(true, res.getNextPage());
+        assertEquals(1, res.getRecipes().size());
+        verify(recipeRepository, times(1)).getFavourite(anyInt(), any());
+        verify(recipeRepository).getFavourite(1, PageRequest.of(0, 5));
     }
 
     @Test
-    void getStatsForAccountThrowsWithNoFavouriteCount() {
-        List<StatRes> list = new ArrayList<>();
-        list.add(new StatRes() {
+    void getFavouriteAfterCursorWorks() {
+        given(recipeRepository.getFavouriteAfter(1, 7, PageRequest.of(0, 5))).willReturn(new SliceImpl<>(List.of(new ListRecipeRes() {
             @Override
-            public String getName() {
+            public String getTitle() {
                 return "test";
             }
 
             @Override
-            public int getCount() {
-                return 12;
+            public int getId() {
+                return 9;
             }
-        });
+        }), PageRequest.of(0, 5), true));
 
-        given(recipeRepository.getStats(anyInt())).willReturn(list);
-        given(recipeRepository.getFavouriteCount(anyInt())).willReturn(Optional.empty());
-        given(recipeRepository.getDoneCount(anyInt())).willReturn(Optional.of(2));
+        ListRes res = testRecipeService.getFavouriteAfter(1, RecipeCursor.encode(7));
 
-        assertThatThrownBy(() -> testRecipeService.getStats(1))
-                .isInstanceOf(BadRequestException.class)
-                .hasMessageContaining("error while getting favourite count from database");
+        assertEquals(true, res.getNextPage());
+        assertEquals(RecipeCursor.encode(9), res.getCursor());
     }
 
     @Test
-    void getStatsForAccountThrowsWithNoDoLaterCount() {
-        List<StatRes> list = new ArrayList<>();
-        list.add(new StatRes() {
-            @Override
-            public String getName() {
-                return "test";
-            }
-
-            @Override
-            public int getCount() {
-                return 12;
-            }
-        });
-
-        given(recipeRepository.getStats(anyInt())).willReturn(list);
-        given(recipeRepository.getDoLaterCount(anyInt())).willReturn(Optional.empty());
-        given(recipeRepository.getDoneCount(anyInt())).willReturn(Optional.of(2));
-        given(recipeRepository.getFavouriteCount(anyInt())).willReturn(Optional.of(4));
-
-        assertThatThrownBy(() -> testRecipeService.getStats(1))
+    void getFavouriteAfterCursorThrowsWithInvalidCursor() {
+        assertThatThrownBy(() -> testRecipeService.getFavouriteAfter(1, "not a cursor"))
                 .isInstanceOf(BadRequestException.class)
-                .hasMessageContaining("error while getting doLater count from database");
-    }
-
-    @Test
-    void getFavouriteForAccountWorks() {
-        given(recipeRepository.getFavourite(anyInt(), any())).willReturn(List.of(new ListRecipeRes() {
-            @Override
-            public String getTitle() {
-                return "test";
-            }
-
-            @Override
-            public int getId() {
-                return 1;
-            }
-        }));
-        testRecipeService.getFavourite(1, 0);
-
-        verify(recipeRepository).getFavourite(1, PageRequest.of(0, 5));
+                .hasMessageContaining("Invalid cursor");
     }
 
     @Test
@@ -749,7 +916,7 @@ class RecipeServiceTest {
 
     @Test
     void getDolaterForAccountWorks() {
-        given(recipeRepository.getDoLater(anyInt(), any())).willReturn(List.of(new ListRecipeRes() {
+        given(recipeRepository.getDoLater(anyInt(), any())).willReturn(new SliceImpl<>(List.of(new ListRecipeRes() {
             @Override
             public String getTitle() {
                 return "test";
@@ -759,12 +926,24 @@ class RecipeServiceTest {
             public int getId() {
                 return 1;
             }
-        }));
-        testRecipeService.getDoLater(1, 0);
+        }), PageRequest.of(0, 5), false));
+        ListRes res = testRecipeService.getDoLater(1, 0);
 
+        assertEquals(false, res.getNextPage());
+        verify(recipeRepository, times(1)).getDoLater(anyInt(), any());
         verify(recipeRepository).getDoLater(1, PageRequest.of(0, 5));
     }
 
+    @Test
+    void getDoLaterAfterCursorStartsFromFirstPage() {
+        given(recipeRepository.getDoLaterAfter(1, 0, PageRequest.of(0, 5))).willReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 5), false));
+
+        ListRes res = testRecipeService.getDoLaterAfter(1, null);
+
+        assertEquals(false, res.getNextPage());
+        assertNull(res.getCursor());
+    }
+
     @Test
     void getDoLateForAccountThrowsWithInvalidPage() {
 
@@ -773,192 +952,169 @@ class RecipeServiceTest {
                 .hasMessageContaining("Invalid page");
     }
 
+    private static FullRecipeRes fullRecipe() {
+        return new FullRecipeRes(1, "title", "recipe img", 12, 12, "recipe original", List.of("test instructions"),
+                "recipe desc", 200, 1, true, true, true, LocalDate.of(2022, 12, 12), List.of(), List.of("test Country"),
+                List.of(), List.of(new MeasurementRes(new Ingredient(1, "test"), 12, new Unit(1, "test"))));
+    }
+
+    private static RecipeFlags flags() {
+        return new RecipeFlags() {
+            @Override
+            public Integer getAccountId() {
+                return 1;
+            }
+
+            @Override
+            public Boolean getFavourite() {
+                return true;
+            }
+
+            @Override
+            public Boolean getDoLater() {
+                return false;
+            }
+
+            @Override
+            public Boolean getFinished() {
+                return false;
+            }
+
+            @Override
+            public LocalDate getToDoDate() {
+                return null;
+            }
+        };
+    }
+
     @Test
     void getRecipeFromDBWorks() {
-        given(recipeRepository.findById(any()))
-                .willReturn(Optional.of(new Recipe(
-                        1,
-                        "title",
-                        "recipe desc",
-                        "recipe original",
-                        12,
-                        12,
-                        "recipe img",
-                        200,
-                        true,
-                        true,
-                        true,
-                        LocalDate.of(2022, 12, 12),
-                        List.of(new Instruction("test instructions")),
-                        List.of(new Category()),
-                        List.of(new Type()),
-                        new Account(),
-                        List.of(new Country(1, "test Country")),
-                        List.of(new Measurement(1, new Unit(1, "test"), new Ingredient(1, "test"), 12))))
-                );
-        FullRecipeRes res = testRecipeService.getRecipe(1);
-        verify(recipeRepository).findById(1);
-
-        assertEquals("test Country", res.getCuisines().get(0));
+        RecipeJsonCache cache = new RecipeJsonCache(new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry(), Duration.ofHours(1), DataSize.ofMegabytes(1));
+        RecipeFlags flags = flags();
+        given(recipeRepository.getFlags(1)).willReturn(Optional.of(flags));
+        given(recipeReader.getRecipe(1)).willReturn(Optional.of(fullRecipe()));
+        given(recipeJsonCache.get(eq(1), eq(flags), any())).willAnswer(invocation ->
+                cache.get(1, flags, invocation.getArgument(2)));
+
+        String res = new String(testRecipeService.getRecipe(1), StandardCharsets.UTF_8);
+        verify(recipeReader).getRecipe(1);
+        verify(recipeRepository, never()).findById(anyInt());
+
+        assertTrue(res.contains("\"cuisines\":[\"test Country\"]"));
+        assertTrue(res.endsWith(",\"favourite\":true,\"doLater\":false,\"finished\":false,\"date\":null}"));
     }
 
     @Test
     void getRecipeFromDBThrowsWithNoRecipe() {
-        given(recipeRepository.findById(any())).willReturn(Optional.empty());
+        given(recipeRepository.getFlags(anyInt())).willReturn(Optional.empty());
         assertThatThrownBy(() -> testRecipeService.getRecipe(1))
                 .isInstanceOf(BadRequestException.class)
                 .hasMessageContaining("no recipe with id");
+        verify(recipeJsonCache, never()).get(anyInt(), any(), any());
     }
 
     @Test
     void getRecipeByDateForAccountWorks() {
-        given(recipeRepository.getByDate(anyInt(), any()))
-                .willReturn(Optional.of(new Recipe(
-                        1,
-                        "title",
-                        "recipe desc",
-                        "recipe original",
-                        12,
-                        12,
-                        "recipe img",
-                        200,
-                        true,
-                        true,
-                        true,
-                        LocalDate.of(2022,12,12),
-                        List.of(new Instruction("test instructions")),
-                        List.of(new Category()),
-                        List.of(new Type()),
-                        new Account(),
-                        List.of(new Country(1, "test Country")),
-                        List.of(new Measurement(1, new Unit(1, "test"), new Ingredient(1, "test"), 12))))
-                );
+        given(recipeReader.getRecipeForDate(anyInt(), any())).willReturn(Optional.of(fullRecipe()));
+
         FullRecipeRes res = testRecipeService.getRecipeForDate(1, LocalDate.of(2022,12,12));
 
-        verify(recipeRepository).getByDate(1, LocalDate.of(2022,12,12));
+        verify(recipeReader).getRecipeForDate(1, LocalDate.of(2022,12,12));
         assertEquals("test Country", res.getCuisines().get(0));
     }
 
     @Test
     void getRecipeByDateForAccountWorksWithNoRecipe() {
-        given(recipeRepository.getByDate(anyInt(), any())).willReturn(Optional.empty());
+        given(recipeReader.getRecipeForDate(anyInt(), any())).willReturn(Optional.empty());
 
         FullRecipeRes res = testRecipeService.getRecipeForDate(1, LocalDate.of(2022,12,12));
 
-        verify(recipeRepository).getByDate(1, LocalDate.of(2022,12,12));
+        verify(recipeReader).getRecipeForDate(1, LocalDate.of(2022,12,12));
         assertNull(res);
     }
 
+    private static List<Day> week(LocalDate monday, int... states) {
+        List<Day> days = new ArrayList<>();
+        for (int i = 0; i < 7; i++) days.add(new Day(monday.plusDays(i), states.length > i ? states[i] : 0));
+        return days;
+    }
+
     @Test
     void getCalendarWorks() {
-        given(recipeRepository.getByDate(anyInt(), any()))
-                .willReturn(Optional.of(new Recipe(
-                        1,
-                        "title",
-                        "recipe desc",
-                        "recipe original",
-                        12,
-                        12,
-                        "recipe img",
-                        200,
-                        true,
-                        true,
-                        true,
-                        LocalDate.of(2022,12,12),
-                        List.of(new Instruction("test instructions")),
-                        List.of(new Category()),
-                        List.of(new Type()),
-                        new Account(),
-                        List.of(new Country(1, "test Country")),
-                        List.of(new Measurement(1, new Unit(1, "test"), new Ingredient(1, "test"), 12))))
-                );
+        LocalDate monday = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        given(calendarIndex.days(1, monday, monday.plusDays(6))).willReturn(week(monday, 2));
+
         Map<String, Day> res = testRecipeService.getCalendar(1);
-        LocalDate today = LocalDate.now();
-        LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
         assertEquals(monday, res.get("Monday").getDate());
         assertEquals(2, res.get("Monday").getState());
+        assertEquals(0, res.get("Tuesday").getState());
+        verify(recipeRepository, never()).getByDate(anyInt(), any());
     }
 
     @Test
     void getCalendarWorksWithNotFinished() {
-        given(recipeRepository.getByDate(anyInt(), any()))
-                .willReturn(Optional.of(new Recipe(
-                        1,
-                        "title",
-                        "recipe desc",
-                        "recipe original",
-                        12,
-                        12,
-                        "recipe img",
-                        200,
-                        true,
-                        true,
-                        false,
-                        LocalDate.of(2022,12,12),
-                        List.of(new Instruction("test instructions")),
-                        List.of(new Category()),
-                        List.of(new Type()),
-                        new Account(),
-                        List.of(new Country(1, "test Country")),
-                        List.of(new Measurement(1, new Unit(1, "test"), new Ingredient(1, "test"), 12))))
-                );
+        LocalDate monday = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        given(calendarIndex.days(1, monday, monday.plusDays(6))).willReturn(week(monday, 0, 0, 1));
+
         Map<String, Day> res = testRecipeService.getCalendar(1);
-        LocalDate today = LocalDate.now();
-        LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-        assertEquals(monday, res.get("Monday").getDate());
-        assertEquals(1, res.get("Monday").getState());
+
+        assertEquals(monday.plusDays(2), res.get("Wednesday").getDate());
+        assertEquals(1, res.get("Wednesday").getState());
     }
 
     @Test
     void getCalendarWorksWithNoRecipe() {
-        given(recipeRepository.getByDate(anyInt(), any()))
-                .willReturn(Optional.empty());
-        Map<String, Day> res = testRecipeService.getCalendar(1);
         LocalDate today = LocalDate.now();
         LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        given(calendarIndex.days(anyInt(), any(), any())).willReturn(week(monday));
+        Map<String, Day> res = testRecipeService.getCalendar(1);
         assertEquals(monday, res.get("Monday").getDate());
+        assertEquals(7, res.size());
+    }
+
+    @Test
+    void getCalendarRangeWorks() {
+        LocalDate from = LocalDate.of(2022, 1, 1);
+        LocalDate to = LocalDate.of(2022, 12, 31);
+        List<Day> days = List.of(new Day(from, 1));
+        given(calendarIndex.days(1, from, to)).willReturn(days);
+
+        assertEquals(days, testRecipeService.getCalendarRange(1, from, to));
     }
 
+    @Test
+    void getCalendarRangeThrowsWithInvalidRange() {
+        LocalDate from = LocalDate.of(2022, 1, 1);
+        assertThatThrownBy(() -> testRecipeService.getCalendarRange(1, from, from.minusDays(1)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Invalid range");
+        assertThatThrownBy(() -> testRecipeService.getCalendarRange(1, from, from.plusDays(367)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Invalid range");
+        verify(calendarIndex, never()).days(anyInt(), any(), any());
+    }
 
     @Test
     void deleteRecipeWorks() {
-        List<Country> countries = new ArrayList<>();
-        countries.add(new Country(1, "test country"));
-        List<Category> categories = new ArrayList<>();
-        categories.add(new Category(1, "test category"));
-        List<Type> types = new ArrayList<>();
-        types.add(new Type(1, "test type"));
-        List<Measurement> measurements = new ArrayList<>();
-        measurements.add(new Measurement(1, new Unit(1, "test"), new Ingredient(1, "test"), 12));
-
-        given(recipeRepository.findById(any()))
-                .willReturn(Optional.of(new Recipe(
-                    1,
-                    "title",
-                    "recipe desc",
-                    "recipe original",
-                    12,
-                    12,
-                    "recipe img",
-                    200,
-                    true,
-                    true,
-                    true,
-                        LocalDate.of(2022,12,12),
-                        List.of(new Instruction("test instructions")),
-                    categories,
-                    types,
-                    new Account(),
-                    countries,
-                    measurements
-                )));
+        RecipeFlags flags = flags();
+        given(recipeRepository.getFlags(1)).willReturn(Optional.of(flags));
+        given(recipeRepository.getCountryIds(1)).willReturn(List.of(1));
+        given(recipeWriter.deleteRecipe(1)).willReturn(true);
+
         testRecipeService.delete(1);
-        verify(recipeRepository).deleteById(1);
+
+        verify(accountStatsService).recipeRemoved(flags, List.of(1));
+        verify(recipeWriter).deleteRecipe(1);
+        verify(calendarIndex).removed(1, 1);
+        verify(recipeJsonCache).invalidate(1);
+        verify(recipeOwners).invalidate(1);
+        verify(recipeRepository, never()).findById(anyInt());
     }
 
     @Test
     void deleteRecipeThrowsWithNoMatchingRecipe() {
-        given(recipeRepository.findById(any())).willReturn(Optional.empty());
+        given(recipeRepository.getFlags(anyInt())).willReturn(Optional.empty());
 
         assertThatThrownBy(() ->  testRecipeService.delete(0))
                 .isInstanceOf(BadRequestException.class)
@@ -967,70 +1123,47 @@ class RecipeServiceTest {
 
     @Test
     void deleteAccountThrowsErrorWithFailedDeletion() {
-        List<Country> countries = new ArrayList<>();
-        countries.add(new Country(1, "test country"));
-        List<Category> categories = new ArrayList<>();
-        categories.add(new Category(1, "test category"));
-        List<Type> types = new ArrayList<>();
-        types.add(new Type(1, "test type"));
-        List<Measurement> measurements = new ArrayList<>();
-        measurements.add(new Measurement(1, new Unit(1, "test"), new Ingredient(1, "test"), 12));
-
-        given(recipeRepository.findById(any()))
-                .willReturn(Optional.of(new Recipe(
-                        1,
-                        "title",
-                        "recipe desc",
-                        "recipe original",
-                        12,
-                        12,
-                        "recipe img",
-                        200,
-                        true,
-                        true,
-                        true,
-                        LocalDate.of(2022,12,12),
-                        List.of(new Instruction("test instructions")),
-                        categories,
-                        types,
-                        new Account(),
-                        countries,
-                        measurements
-                )));
-        doThrow(new RuntimeException("error")).when(recipeRepository).deleteById(any());
+        given(recipeRepository.getFlags(0)).willReturn(Optional.of(flags()));
+        doThrow(new RuntimeException("error")).when(recipeWriter).deleteRecipe(0);
         assertThatThrownBy(() ->  testRecipeService.delete(0))
                 .isInstanceOf(DatabaseException.class)
                 .hasMessageContaining("error while deleting from database");
 
-        verify(recipeRepository).deleteById(0);
+        verify(recipeWriter).deleteRecipe(0);
     }
 
     @Test
     void randomRecipeWorks() {
-        given(recipeUtils.randomResults())
-                .willReturn(new RandomResponse());
+        given(randomRecipePool.take("test caller"))
+                .willReturn(Mono.just(List.of(new ShortRecipe(1, "test title", "test image"))));
 
-        testRecipeService.getRandom();
+        assertEquals(1, testRecipeService.getRandom("test caller").block().getRecipes().size());
 
-        verify(recipeUtils).randomResults();
+        verify(randomRecipePool).take("test caller");
     }
     @Test
     void randomRecipe402errorWorks() {
-        given(recipeUtils.randomResults())
-                .willThrow(new RuntimeException("402 error"));
+        given(randomRecipePool.take("test caller"))
+                .willReturn(Mono.error(new UpstreamException(UpstreamException.Kind.QUOTA_EXHAUSTED, "402 error")));
 
-        assertThatThrownBy(() ->  testRecipeService.getRandom())
+        assertThatThrownBy(() ->  testRecipeService.getRandom("test caller").block())
                 .isInstanceOf(ApiException.class)
                 .hasMessageContaining("API limit reached");
     }
     @Test
     void randomRecipe403errorWorks() {
-        given(recipeUtils.randomResults()).willThrow(new RuntimeException("403 error"));
+        given(randomRecipePool.take("test caller")).willReturn(Mono.error(new UpstreamException(UpstreamException.Kind.UNAUTHORIZED, "403 error")));
 
-        assertThatThrownBy(() ->  testRecipeService.getRandom())
+        assertThatThrownBy(() ->  testRecipeService.getRandom("test caller").block())
                 .isInstanceOf(BadRequestException.class)
                 .hasMessageContaining("API error");
     }
-}
-
+    @Test
+    void randomRecipeApiExceptionIsNotBadRequest() {
+        given(randomRecipePool.take("test caller")).willReturn(Mono.error(new ApiException("API unavailable")));
 
+        assertThatThrownBy(() ->  testRecipeService.getRandom("test caller").block())
+                .isInstanceOf(ApiException.class)
+                .hasMessageContaining("API unavailable");
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.recipe.recipe;
+
+import com.example.recipe.RecipeApplication;
+import com.example.recipe.account.Account;
+import com.example.recipe.ingredient.Ingredient;
+import com.example.recipe.instructions.Instruction;
+import com.example.recipe.measurement.Measurement;
+import com.example.recipe.unit.Unit;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares saving a recipe with 30 ingredients through the cascade and through RecipeWriter.
+ */
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ContextConfiguration(classes = RecipeApplication.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RecipeWriterTest {
+    private static final Logger log = LoggerFactory.getLogger(RecipeWriterTest.class);
+    private static final int INGREDIENTS = 30;
+    private static final int INSTRUCTIONS = 8;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final AtomicInteger writerStatements = new AtomicInteger();
+    private RecipeWriter recipeWriter;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        recipeWriter = new RecipeWriter(new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int update(String sql, Object... args) {
+                writerStatements.incrementAndGet();
+                return super.update(sql, args);
+            }
+        });
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private static Recipe recipe(int id, List<Measurement> measurements, List<Instruction> instructions) {
+        return new Recipe(id, "test title", "test desc", "test original", 12, 2, "test image", 120,
+                false, false, false, null, instructions, new ArrayList<>(), new ArrayList<>(),
+                new Account(1, "test", "test", "test", "test"), new ArrayList<>(), measurements);
+    }
+
+    private static List<Measurement> measurements() {
+        List<Measurement> measurements = new ArrayList<>();
+        for (int i = 0; i < INGREDIENTS; i++) {
+            measurements.add(new Measurement(0, new Unit(1, "test unit"), new Ingredient(1, "test ingredient"), i + 1));
+        }
+        return measurements;
+    }
+
+    private static List<Instruction> instructions() {
+        List<Instruction> instructions = new ArrayList<>();
+        for (int i = 0; i < INSTRUCTIONS; i++) instructions.add(new Instruction("step " + i));
+        return instructions;
+    }
+
+    @Test
+    void cascadeInsertsOneStatementPerChild() {
+        long start = System.nanoTime();
+        recipeRepository.saveAndFlush(recipe(10, measurements(), instructions()));
+        long micros = (System.nanoTime() - start) / 1000;
+
+        long statements = statistics.getPrepareStatementCount();
+        log.info("Cascade saved {} ingredients with {} statements in {} us", INGREDIENTS, statements, micros);
+        assertTrue(statements >= INGREDIENTS + INSTRUCTIONS);
+    }
+
+    @Test
+    void writerInsertsChildrenInOneStatementEach() {
+        long start = System.nanoTime();
+        recipeRepository.saveAndFlush(recipe(11, new ArrayList<>(), new ArrayList<>()));
+        recipeWriter.insertMeasurements(11, measurements());
+        recipeWriter.insertInstructions(11, instructions());
+        long micros = (System.nanoTime() - start) / 1000;
+
+        long statements = statistics.getPrepareStatementCount() + writerStatements.get();
+        log.info("Writer saved {} ingredients with {} statements in {} us", INGREDIENTS, statements, micros);
+        assertEquals(2, writerStatements.get());
+        assertTrue(statistics.getPrepareStatementCount() <= 3);
+
+        assertEquals(INGREDIENTS, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM measurement WHERE recipe_id = 11", Integer.class));
+        assertEquals(List.of("step 0", "step 1", "step 2", "step 3", "step 4", "step 5", "step 6", "step 7"), jdbcTemplate.queryForList(
+                "SELECT instruction_body FROM instruction WHERE recipe_id = 11 ORDER BY instruction_id", String.class));
+    }
+
+    @Test
+    void deleteRecipeRemovesRowsWithoutLoadingIt() {
+        assertTrue(recipeWriter.deleteRecipe(1));
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(6, writerStatements.get());
+        assertFalse(recipeRepository.existsById(1));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM measurement WHERE recipe_id = 1", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM recipe_country_mapping WHERE recipe_country = 1", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM country WHERE country_id = 1", Integer.class));
+        assertFalse(recipeWriter.deleteRecipe(1));
+    }
+}
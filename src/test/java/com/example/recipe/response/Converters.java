@@ -11,7 +11,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Class for converters to convert entities to returnable versions
+ * Converts recipe entities to FullRecipeRes, the way full recipes were read before RecipeReader.
+ * Kept to compare RecipeReader with the entity path.
  */
 public class Converters {
     /**
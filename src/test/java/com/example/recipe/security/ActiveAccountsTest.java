@@ -0,0 +1,53 @@
+package com.example.recipe.security;
+
+import com.example.recipe.account.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ActiveAccountsTest {
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+
+    private ActiveAccounts activeAccounts(boolean enabled) {
+        return new ActiveAccounts(accountRepository, new SimpleMeterRegistry(), enabled, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    void accountIsQueriedOncePerTtl() {
+        ActiveAccounts activeAccounts = activeAccounts(true);
+        given(accountRepository.existsById(1)).willReturn(true);
+
+        assertTrue(activeAccounts.isActive(1));
+        assertTrue(activeAccounts.isActive(1));
+
+        verify(accountRepository, times(1)).existsById(1);
+    }
+
+    @Test
+    void evictedAccountIsQueriedAgain() {
+        ActiveAccounts activeAccounts = activeAccounts(true);
+        given(accountRepository.existsById(1)).willReturn(true);
+        activeAccounts.isActive(1);
+
+        given(accountRepository.existsById(1)).willReturn(false);
+        activeAccounts.evict(1);
+
+        assertFalse(activeAccounts.isActive(1));
+    }
+
+    @Test
+    void nothingIsQueriedWhenOff() {
+        assertTrue(activeAccounts(false).isActive(1));
+        verify(accountRepository, never()).existsById(anyInt());
+    }
+}
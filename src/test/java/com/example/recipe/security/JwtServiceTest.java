@@ -0,0 +1,46 @@
+package com.example.recipe.security;
+
+import com.example.recipe.account.Account;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtServiceTest {
+    private static final String KEY = "cHJvcGVydHlzdWJzdGFuY2V3aXRocmlkaW5nZ3JlYXRhcnRpY2xld2l0aGluZGlzYXA";
+
+    private final JwtService jwtService = new JwtService(KEY);
+    private final Account account = new Account(3, "test username", "test name", "test email", "test");
+
+    @Test
+    void authenticationIsMadeFromClaims() {
+        UsernamePasswordAuthenticationToken token = jwtService.getAuthentication(jwtService.newToken(account));
+
+        Account principal = (Account) token.getPrincipal();
+        assertEquals(3, principal.getId());
+        assertEquals("test username", principal.getUsername());
+        assertNull(principal.getPassword());
+        assertTrue(token.getAuthorities().isEmpty());
+        assertTrue(token.isAuthenticated());
+    }
+
+    @Test
+    void tokenWithoutIdGivesNoAuthentication() {
+        String token = jwtService.newToken(new HashMap<>(), account);
+
+        assertNull(jwtService.getAuthentication(token));
+        assertEquals("test username", jwtService.getUsername(token));
+    }
+
+    @Test
+    void tokenSignedWithOtherKeyThrows() {
+        String token = new JwtService(KEY.replace('c', 'd')).newToken(account);
+
+        assertThrows(Exception.class, () -> jwtService.getAuthentication(token));
+    }
+}
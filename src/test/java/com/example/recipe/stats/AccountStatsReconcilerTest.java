@@ -0,0 +1,44 @@
+package com.example.recipe.stats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountStatsReconcilerTest {
+
+    @Mock
+    private AccountStatsService accountStatsService;
+
+    @Mock
+    private AccountStatsRepository accountStatsRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AccountStatsReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        reconciler = new AccountStatsReconciler(accountStatsService, accountStatsRepository, meterRegistry);
+    }
+
+    @Test
+    void reconcileCountsDriftedAccounts() {
+        given(accountStatsRepository.getAccountIds()).willReturn(List.of(1, 2, 3));
+        given(accountStatsService.rebuild(1)).willReturn(true);
+        given(accountStatsService.rebuild(2)).willThrow(new RuntimeException("error"));
+        given(accountStatsService.rebuild(3)).willReturn(false);
+
+        assertEquals(1, reconciler.reconcile());
+        verify(accountStatsService).rebuild(3);
+        assertEquals(1, meterRegistry.get("recipe.stats.drift").counter().count());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.recipe.stats;
+
+import com.example.recipe.RecipeApplication;
+import com.example.recipe.recipe.RecipeCounts;
+import com.example.recipe.recipe.RecipeRepository;
+import com.example.recipe.response.StatRes;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@DataJpaTest()
+@ContextConfiguration(classes = RecipeApplication.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AccountStatsRepositoryTest {
+
+    @Autowired
+    private AccountStatsRepository testAccountStatsRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Test
+    void countsAreEmptyBeforeBuilt() {
+        assertTrue(testAccountStatsRepository.getCounts(1).isEmpty());
+        assertEquals(0, testAccountStatsRepository.addCounts(1, 1, 1, 1));
+    }
+
+    @Test
+    void putAndAddCountsWorks() {
+        testAccountStatsRepository.putCounts(1, 1, 2, 3);
+        assertEquals(1, testAccountStatsRepository.addCounts(1, 1, -1, 0));
+
+        RecipeCounts counts = testAccountStatsRepository.getCounts(1).orElseThrow();
+        assertEquals(2, counts.getDone());
+        assertEquals(1, counts.getFavourite());
+        assertEquals(3, counts.getDoLater());
+
+        testAccountStatsRepository.putCounts(1, 0, 0, 0);
+        assertEquals(0, testAccountStatsRepository.getCounts(1).orElseThrow().getDone());
+
+        testAccountStatsRepository.deleteCounts(1);
+        assertTrue(testAccountStatsRepository.getCounts(1).isEmpty());
+    }
+
+    @Test
+    void createCountsKeepsStoredCounters() {
+        testAccountStatsRepository.createCounts(1);
+        assertEquals(0, testAccountStatsRepository.lockCounts(1).orElseThrow().getDone());
+
+        testAccountStatsRepository.putCounts(1, 1, 2, 3);
+        testAccountStatsRepository.createCounts(1);
+
+        RecipeCounts counts = testAccountStatsRepository.lockCounts(1).orElseThrow();
+        assertEquals(1, counts.getDone());
+        assertEquals(2, counts.getFavourite());
+        assertEquals(3, counts.getDoLater());
+    }
+
+    @Test
+    void toggledFlagsAreCountedByNewValue() {
+        testAccountStatsRepository.putCounts(1, 1, 1, 1);
+
+        recipeRepository.toggleFavourite(1, 1);
+        testAccountStatsRepository.favouriteToggled(1, 1);
+        recipeRepository.toggleDoLater(2, 1);
+        testAccountStatsRepository.doLaterToggled(1, 2);
+
+        RecipeCounts counts = testAccountStatsRepository.getCounts(1).orElseThrow();
+        assertEquals(2, counts.getFavourite());
+        assertEquals(0, counts.getDoLater());
+    }
+
+    @Test
+    void countryCountsWork() {
+        testAccountStatsRepository.countCountries(1);
+        List<StatRes> counted = testAccountStatsRepository.getCountries(1);
+        assertEquals(1, counted.size());
+        assertEquals("test country", counted.get(0).getName());
+        assertEquals(2, counted.get(0).getCount());
+
+        testAccountStatsRepository.addCountry(1, 2, 1);
+        testAccountStatsRepository.addCountry(1, 1, 1);
+        testAccountStatsRepository.removeCountries(1, List.of(2));
+
+        List<StatRes> changed = testAccountStatsRepository.getCountries(1);
+        assertEquals(1, changed.size());
+        assertEquals(3, changed.get(0).getCount());
+
+        testAccountStatsRepository.deleteCountries(1);
+        assertEquals(0, testAccountStatsRepository.getCountries(1).size());
+    }
+
+    @Test
+    void getAccountIdsWorks() {
+        assertTrue(testAccountStatsRepository.getAccountIds().contains(1));
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.recipe.stats;
+
+import com.example.recipe.account.Account;
+import com.example.recipe.country.Country;
+import com.example.recipe.recipe.Recipe;
+import com.example.recipe.recipe.RecipeCounts;
+import com.example.recipe.recipe.RecipeFlags;
+import com.example.recipe.recipe.RecipeRepository;
+import com.example.recipe.recipe.RecipeStats;
+import com.example.recipe.response.StatRes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountStatsServiceTest {
+
+    @Mock
+    private AccountStatsRepository accountStatsRepository;
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @InjectMocks
+    private AccountStatsService testAccountStatsService;
+
+    private static RecipeCounts counts(int done, int favourite, int doLater) {
+        return new RecipeCounts() {
+            @Override
+            public int getDone() {
+                return done;
+            }
+
+            @Override
+            public int getFavourite() {
+                return favourite;
+            }
+
+            @Override
+            public int getDoLater() {
+                return doLater;
+            }
+        };
+    }
+
+    private static StatRes stat(String name, int count) {
+        return new StatRes() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public int getCount() {
+                return count;
+            }
+        };
+    }
+
+    private static Recipe recipe(boolean flags) {
+        Recipe recipe = new Recipe();
+        recipe.setAccount(new Account(1, "test", "test", "test", "test"));
+        recipe.setFinished(flags);
+        recipe.setFavourite(flags);
+        recipe.setDoLater(false);
+        recipe.setCountry(new ArrayList<>(List.of(new Country(1, "test"), new Country(2, "test2"))));
+        return recipe;
+    }
+
+    private static RecipeFlags flags(boolean flags) {
+        return new RecipeFlags() {
+            @Override
+            public Integer getAccountId() {
+                return 1;
+            }
+
+            @Override
+            public Boolean getFavourite() {
+                return flags;
+            }
+
+            @Override
+            public Boolean getDoLater() {
+                return false;
+            }
+
+            @Override
+            public Boolean getFinished() {
+                return flags;
+            }
+
+            @Override
+            public LocalDate getToDoDate() {
+                return null;
+            }
+        };
+    }
+
+    @Test
+    void getStatsReadsStoredCounters() {
+        given(accountStatsRepository.getCounts(1)).willReturn(Optional.of(counts(1, 2, 3)));
+        given(accountStatsRepository.getCountries(1)).willReturn(List.of(stat("test", 4)));
+
+        RecipeStats res = testAccountStatsService.getStats(1);
+
+        assertEquals(1, res.getDone());
+        assertEquals(2, res.getFavourite());
+        assertEquals(3, res.getDoLater());
+        assertEquals(4, res.getChart().get(0).getCount());
+        verify(recipeRepository, never()).getCounts(anyInt());
+    }
+
+    @Test
+    void getStatsBuildsMissingCounters() {
+        given(accountStatsRepository.getCounts(1)).willReturn(Optional.empty(), Optional.empty(), Optional.of(counts(1, 1, 0)));
+        given(accountStatsRepository.lockCounts(1)).willReturn(Optional.of(counts(0, 0, 0)));
+        given(recipeRepository.getCounts(1)).willReturn(counts(1, 1, 0));
+        given(recipeRepository.getStats(1)).willReturn(List.of(stat("test", 1)));
+
+        RecipeStats res = testAccountStatsService.getStats(1);
+
+        assertEquals(1, res.getDone());
+        InOrder inOrder = inOrder(accountStatsRepository, recipeRepository);
+        inOrder.verify(accountStatsRepository).createCounts(1);
+        inOrder.verify(accountStatsRepository).lockCounts(1);
+        inOrder.verify(recipeRepository).getCounts(1);
+        inOrder.verify(accountStatsRepository).putCounts(1, 1, 1, 0);
+        inOrder.verify(accountStatsRepository).deleteCountries(1);
+        inOrder.verify(accountStatsRepository).countCountries(1);
+    }
+
+    @Test
+    void getStatsBuildsNothingWithoutRecipes() {
+        given(accountStatsRepository.getCounts(1)).willReturn(Optional.empty(), Optional.empty(), Optional.of(counts(0, 0, 0)));
+        given(accountStatsRepository.lockCounts(1)).willReturn(Optional.of(counts(0, 0, 0)));
+        given(recipeRepository.getCounts(1)).willReturn(counts(0, 0, 0));
+
+        assertEquals(0, testAccountStatsService.getStats(1).getDone());
+        verify(accountStatsRepository).createCounts(1);
+        verify(accountStatsRepository, never()).countCountries(anyInt());
+    }
+
+    @Test
+    void rebuildReportsDrift() {
+        given(recipeRepository.getCounts(1)).willReturn(counts(1, 1, 0));
+        given(recipeRepository.getStats(1)).willReturn(List.of(stat("test", 1)));
+        given(accountStatsRepository.getCounts(1)).willReturn(Optional.of(counts(1, 2, 0)));
+        given(accountStatsRepository.lockCounts(1)).willReturn(Optional.of(counts(1, 2, 0)));
+
+        assertTrue(testAccountStatsService.rebuild(1));
+        verify(accountStatsRepository).putCounts(1, 1, 1, 0);
+    }
+
+    @Test
+    void rebuildReportsDriftInCountries() {
+        given(recipeRepository.getCounts(1)).willReturn(counts(1, 1, 0));
+        given(recipeRepository.getStats(1)).willReturn(List.of(stat("test", 1)));
+        given(accountStatsRepository.getCounts(1)).willReturn(Optional.of(counts(1, 1, 0)));
+        given(accountStatsRepository.lockCounts(1)).willReturn(Optional.of(counts(1, 1, 0)));
+        given(accountStatsRepository.getCountries(1)).willReturn(List.of(stat("test", 2)));
+
+        assertTrue(testAccountStatsService.rebuild(1));
+        verify(accountStatsRepository).countCountries(1);
+    }
+
+    @Test
+    void rebuildKeepsMatchingCounters() {
+        given(recipeRepository.getCounts(1)).willReturn(counts(1, 1, 0));
+        given(recipeRepository.getStats(1)).willReturn(List.of(stat("test", 1)));
+        given(accountStatsRepository.getCounts(1)).willReturn(Optional.of(counts(1, 1, 0)));
+        given(accountStatsRepository.lockCounts(1)).willReturn(Optional.of(counts(1, 1, 0)));
+        given(accountStatsRepository.getCountries(1)).willReturn(List.of(stat("test", 1)));
+
+        assertFalse(testAccountStatsService.rebuild(1));
+        verify(accountStatsRepository, never()).putCounts(anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void recipeAddedCountsFlagsAndCountries() {
+        given(accountStatsRepository.addCounts(1, 1, 1, 0)).willReturn(1);
+
+        testAccountStatsService.recipeAdded(recipe(true));
+
+        verify(accountStatsRepository).addCountry(1, 1, 1);
+        verify(accountStatsRepository).addCountry(1, 2, 1);
+    }
+
+    @Test
+    void recipeAddedSkipsCountriesWithoutCounters() {
+        given(accountStatsRepository.addCounts(1, 0, 0, 0)).willReturn(0);
+
+        testAccountStatsService.recipeAdded(recipe(false));
+
+        verify(accountStatsRepository, never()).addCountry(anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void recipeRemovedUncountsFlagsAndCountries() {
+        given(accountStatsRepository.addCounts(1, -1, -1, 0)).willReturn(1);
+
+        testAccountStatsService.recipeRemoved(flags(true), List.of(1, 2));
+
+        verify(accountStatsRepository).removeCountries(1, List.of(1, 2));
+    }
+
+    @Test
+    void accountDeletedDeletesStats() {
+        testAccountStatsService.accountDeleted(1);
+
+        verify(accountStatsRepository).deleteCounts(1);
+        verify(accountStatsRepository).deleteCountries(1);
+    }
+}
@@ -2,14 +2,17 @@ package com.example.recipe.unit;
 
 import com.example.recipe.RecipeApplication;
 import com.example.recipe.recipe.ListRecipeRes;
+import com.example.recipe.vocabulary.VocabularyInserter;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +26,9 @@ public class UnitRepositoryTest {
     @Autowired
     private UnitRepository testUnitRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @AfterEach
     void deleteAll() {
         testUnitRepository.deleteAll();
@@ -40,4 +46,16 @@ public class UnitRepositoryTest {
         assertEquals(1, foundEntity.getId());
         assertNull(foundNoneEntity);
     }
+
+    @Test
+    void upsertKeepsEmptyUnitAndTrimsNames() {
+        VocabularyInserter inserter = new VocabularyInserter(jdbcTemplate, "unit");
+
+        List<Unit> found = inserter.upsert(Arrays.asList("", " tbsp ", "tbsp", null), testUnitRepository::getUnitsByNames);
+        List<Unit> foundAgain = inserter.upsert(List.of("", "tbsp"), testUnitRepository::getUnitsByNames);
+
+        assertEquals(List.of("", "tbsp"), found.stream().map(Unit::getName).sorted().toList());
+        assertEquals(found.stream().map(Unit::getId).sorted().toList(), foundAgain.stream().map(Unit::getId).sorted().toList());
+        assertTrue(testUnitRepository.getUnitByName("").isPresent());
+    }
 }
@@ -0,0 +1,94 @@
+package com.example.recipe.vocabulary;
+
+import com.example.recipe.ingredient.Ingredient;
+import com.example.recipe.ingredient.IngredientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class VocabularyTest {
+
+    @Mock
+    private IngredientRepository ingredientRepository;
+
+    private Vocabulary<Ingredient> vocabulary;
+
+    @BeforeEach
+    void setUp() {
+        vocabulary = new Vocabulary<>("ingredient", ingredientRepository,
+                ingredientRepository::getIngredientsByNames, Ingredient::getName, Ingredient::getId);
+    }
+
+    private static List<Ingredient> ingredients(Collection<String> names) {
+        List<Ingredient> ingredients = new ArrayList<>();
+        for (String name : names) ingredients.add(new Ingredient(name));
+        return ingredients;
+    }
+
+    @Test
+    void knownNamesNeedNoQuery() {
+        Ingredient salt = new Ingredient(1, "Salt");
+        given(ingredientRepository.findAll()).willReturn(List.of(salt));
+
+        assertSame(salt, vocabulary.get(" salt"));
+        assertSame(salt, vocabulary.resolve(List.of("SALT")).get("SALT"));
+        assertSame(salt, vocabulary.get("Salt"));
+        verify(ingredientRepository, times(1)).findAll();
+        verify(ingredientRepository, times(0)).getIngredientsByNames(any());
+    }
+
+    @Test
+    void newNamesAreUpsertedTogether() {
+        given(ingredientRepository.findAll()).willReturn(List.of(new Ingredient(1, "salt")));
+        given(ingredientRepository.getIngredientsByNames(any())).willAnswer(invocation -> ingredients(invocation.getArgument(0)));
+
+        Map<String, Ingredient> resolved = vocabulary.resolve(List.of("salt", "pepper", "Pepper", " oil"));
+
+        assertEquals("pepper", resolved.get("Pepper").getName());
+        assertEquals("oil", resolved.get(" oil").getName());
+        assertEquals(3, vocabulary.size());
+        verify(ingredientRepository).getIngredientsByNames(argThat(names -> List.copyOf(names).equals(List.of("pepper", "oil"))));
+
+        vocabulary.resolve(List.of("pepper", "oil"));
+        verify(ingredientRepository, times(1)).getIngredientsByNames(any());
+    }
+
+    @Test
+    void vocabularyWithoutUpsertDoesNotAdd() {
+        Vocabulary<Ingredient> fixed = new Vocabulary<>("ingredient", ingredientRepository, null, Ingredient::getName, Ingredient::getId);
+        given(ingredientRepository.findAll()).willReturn(List.of());
+
+        assertNull(fixed.resolve(List.of("salt")).get("salt"));
+        assertNull(fixed.get("salt"));
+        verify(ingredientRepository, times(0)).getIngredientsByNames(any());
+    }
+
+    @Test
+    void missingIdsAreLookedUpTogether() {
+        given(ingredientRepository.findAll()).willReturn(List.of(new Ingredient(1, "salt")));
+        given(ingredientRepository.findAllById(any())).willReturn(List.of(new Ingredient(3, "pepper")));
+
+        assertEquals(Set.of(2), vocabulary.missingIds(List.of(1, 2, 3)));
+        assertEquals(Set.of(), vocabulary.missingIds(List.of(1, 3)));
+        verify(ingredientRepository).findAllById(List.of(2, 3));
+        verify(ingredientRepository, times(1)).findAllById(any());
+    }
+}